@@ -0,0 +1,119 @@
+package com.tvm.usermanagement.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvm.usermanagement.common.ApiResponse;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.util.ProtobufUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encode and decode time of a list page in each negotiable format, with and without gzip. The encoded size is
+ * reported next to the timings as the {@code payloadBytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+    private static final TypeReference<ApiResponse<List<UserModel>>> PAGE_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    private String format;
+
+    @Param({"10", "1000"})
+    private int pageSize;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<UserModel>> response;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        List<UserModel> users = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            UserModel user = new UserModel("user" + i, "User Number " + i, "user" + i + "@example.com");
+            user.setId((long) i + 1);
+            user.setVersion((long) i % 3);
+            users.add(user);
+        }
+        response = new ApiResponse<>(200, "All users retrieved successfully.", 1_000_000, users);
+        encoded = encodeResponse();
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize size) throws IOException {
+        byte[] bytes = encodeResponse();
+        size.payloadBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object decode(PayloadSize size) throws IOException {
+        size.payloadBytes = encoded.length;
+        ByteArrayInputStream bytes = new ByteArrayInputStream(encoded);
+        if (gzip) {
+            try (GZIPInputStream in = new GZIPInputStream(bytes)) {
+                return "protobuf".equals(format) ? ProtobufUtil.read(in) : objectMapper.readValue(in, PAGE_TYPE);
+            }
+        }
+        return "protobuf".equals(format) ? ProtobufUtil.read(bytes) : objectMapper.readValue(bytes, PAGE_TYPE);
+    }
+
+    private byte[] encodeResponse() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+                write(out);
+            }
+        } else {
+            write(bytes);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void write(OutputStream out) throws IOException {
+        if ("protobuf".equals(format)) {
+            ProtobufUtil.write(response, out);
+        } else {
+            objectMapper.writeValue(out, response);
+        }
+    }
+
+    /**
+     * Set to the size of the payload each call encodes or decodes; an auxiliary counter, so JMH reports it per benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+    }
+}
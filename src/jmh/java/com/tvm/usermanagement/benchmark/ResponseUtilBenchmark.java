@@ -0,0 +1,28 @@
+package com.tvm.usermanagement.benchmark;
+
+import com.tvm.usermanagement.common.ApiResponse;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.util.ResponseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseUtilBenchmark {
+
+    private final UserModel user = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<UserModel>> createResponse() {
+        return ResponseUtil.createResponse(HttpStatus.OK, "User retrieved successfully.", 0, user);
+    }
+}
@@ -0,0 +1,100 @@
+package com.tvm.usermanagement.benchmark;
+
+import com.tvm.usermanagement.exception.UserAlreadyExistsException;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import com.tvm.usermanagement.service.UserService;
+import com.tvm.usermanagement.service.UserUniquenessIndex;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserService hot paths against an embedded Postgres: getUserById on a cache hit and a cache miss,
+ * and checkUserExists for a new user (answered by the uniqueness index) and a taken one (database lookup).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+
+    private static final int SEEDED_USERS = 10_000;
+
+    private EmbeddedApplication application;
+    private UserService userService;
+    private Cache usersCache;
+    private Long hotId;
+    private Long coldId;
+    private UserModel takenUser;
+    private final AtomicLong newUserSequence = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        application = EmbeddedApplication.start("user.cache.invalidation.enabled=false", "logging.level.com.tvm=WARN");
+        userService = application.getBean(UserService.class);
+        usersCache = application.getBean(CacheManager.class).getCache("users");
+
+        List<UserModel> users = new ArrayList<>(SEEDED_USERS);
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            users.add(new UserModel("bench" + i, "Bench User " + i, "bench" + i + "@example.com"));
+        }
+        List<UserModel> saved = application.getBean(UserRepository.class).saveAll(users);
+        hotId = saved.get(0).getId();
+        coldId = saved.get(SEEDED_USERS / 2).getId();
+        takenUser = new UserModel("bench1", "Bench User 1", "bench1@example.com");
+        userService.getUserById(hotId);
+
+        // The index is built in the background after startup; wait so checkUserExists takes its fast path
+        UserUniquenessIndex index = application.getBean(UserUniquenessIndex.class);
+        while (index.mightContainEmail("not-seeded@example.com")) {
+            Thread.sleep(50);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        application.close();
+    }
+
+    @Benchmark
+    public UserModel getUserByIdCacheHit() {
+        return userService.getUserById(hotId);
+    }
+
+    @Benchmark
+    public UserModel getUserByIdCacheMiss() {
+        usersCache.evict(coldId);
+        return userService.getUserById(coldId);
+    }
+
+    @Benchmark
+    public UserModel checkUserExistsNewUser() {
+        long n = newUserSequence.incrementAndGet();
+        UserModel user = new UserModel("fresh" + n, "Fresh User", "fresh" + n + "@example.com");
+        userService.checkUserExists(user);
+        return user;
+    }
+
+    @Benchmark
+    public String checkUserExistsTakenUser() {
+        try {
+            userService.checkUserExists(takenUser);
+            return null;
+        } catch (UserAlreadyExistsException e) {
+            return e.getField();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.tvm.usermanagement.cache;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An encoded 200 response: its body, content type and the headers that go with it (ETag, Cache-Control, Vary, CORS).
+ * The body is either a heap array or a direct buffer outside the Java heap; it is never modified after creation.
+ */
+public class CachedResponse {
+
+    // Rough per-entry overhead of the key, headers and object headers, so many tiny entries still count
+    private static final int ENTRY_OVERHEAD = 512;
+
+    private final String contentType;
+    private final Map<String, List<String>> headers;
+    private final ByteBuffer body;
+
+    public CachedResponse(String contentType, Map<String, List<String>> headers, byte[] body, boolean offHeap) {
+        this.contentType = contentType;
+        this.headers = Map.copyOf(headers);
+        if (offHeap) {
+            this.body = ByteBuffer.allocateDirect(body.length).put(body).flip();
+        } else {
+            this.body = ByteBuffer.wrap(body);
+        }
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    // Cache weight in bytes
+    public int size() {
+        return body.capacity() + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Writes the stored headers and body as is. A matching If-None-Match gets a 304 with the headers only.
+     */
+    public void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        List<String> eTag = headers.get(HttpHeaders.ETAG);
+        if (eTag != null && new ServletWebRequest(request, response).checkNotModified(eTag.get(0))) {
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType);
+        response.setContentLength(body.capacity());
+        ServletOutputStream out = response.getOutputStream();
+        if (body.hasArray()) {
+            out.write(body.array(), body.arrayOffset(), body.capacity());
+        } else {
+            // duplicate() gives this request its own position, so concurrent hits can share the buffer
+            Channels.newChannel(out).write(body.duplicate());
+        }
+    }
+}
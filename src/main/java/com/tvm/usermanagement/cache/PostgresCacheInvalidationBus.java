@@ -0,0 +1,171 @@
+package com.tvm.usermanagement.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the node-local user caches coherent across replicas using Postgres LISTEN/NOTIFY.
+ * Writes publish a NOTIFY inside their own transaction, so it is delivered only if the write commits;
+ * every node listens on a dedicated connection and evicts the keys that other nodes changed.
+ */
+@Component
+@ConditionalOnProperty(name = "user.cache.invalidation.enabled", havingValue = "true")
+public class PostgresCacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresCacheInvalidationBus.class);
+    // Payloads are "nodeId:userId[,userId...]", or "nodeId:*" when all listings changed
+    public static final String CHANNEL = "user_cache_invalidation";
+    public static final String ALL_LISTINGS = "*";
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_LENGTH = 7900;
+
+    // Lets a node recognise and skip its own notifications
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Value("${user.cache.invalidation.poll-timeout-ms:500}")
+    private int pollTimeoutMs;
+
+    @Value("${user.cache.invalidation.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publish(UserCacheInvalidationEvent event) {
+        List<String> payloads = toPayloads(event.getUserIds());
+        if (payloads.size() == 1) {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payloads.get(0));
+        } else {
+            // Bulk changes send all their notifications in one round trip
+            jdbcTemplate.queryForList("SELECT pg_notify(?, payload) FROM unnest(?) AS payload", CHANNEL, (Object) payloads.toArray(new String[0]));
+        }
+    }
+
+    // Packs the ids into as few payloads as fit under the NOTIFY payload limit
+    private List<String> toPayloads(List<Long> userIds) {
+        if (userIds == null) {
+            return List.of(nodeId + ":" + ALL_LISTINGS);
+        }
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(nodeId).append(':');
+        int emptyLength = payload.length();
+        for (Long id : userIds) {
+            String key = id.toString();
+            if (payload.length() > emptyLength && payload.length() + 1 + key.length() > MAX_PAYLOAD_LENGTH) {
+                payloads.add(payload.toString());
+                payload.setLength(emptyLength);
+            }
+            payload.append(payload.length() > emptyLength ? "," : "").append(key);
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "user-cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Notifications sent while we were not listening are lost, so start from empty caches
+                userCacheInvalidator.evictAll();
+                logger.info("Listening for user cache invalidations on channel {} as node {}", CHANNEL, nodeId);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                // Reconnecting starts again from empty caches, so nothing missed in between is served stale
+                logger.warn("Lost the cache invalidation connection, reconnecting in {} ms: {}", reconnectDelayMs, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        int separator = payload.lastIndexOf(':');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        String key = payload.substring(separator + 1);
+        try {
+            if (ALL_LISTINGS.equals(key)) {
+                userCacheInvalidator.evictListings();
+                userCacheInvalidator.evictAgainAfterReplicaLag(null);
+            } else {
+                List<Long> ids = new ArrayList<>();
+                for (String id : key.split(",")) {
+                    ids.add(Long.valueOf(id));
+                }
+                userCacheInvalidator.evictUsers(ids);
+                userCacheInvalidator.evictAgainAfterReplicaLag(ids);
+            }
+        } catch (RuntimeException e) {
+            // The changed users are unknown, so drop everything rather than keep serving what may be stale
+            logger.warn("Could not apply cache invalidation '{}', evicting all user caches: {}", payload, e.getMessage());
+            userCacheInvalidator.evictAll();
+        }
+    }
+}
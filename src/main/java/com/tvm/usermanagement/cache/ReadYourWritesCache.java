@@ -0,0 +1,90 @@
+package com.tvm.usermanagement.cache;
+
+import com.tvm.usermanagement.util.ReadRoutingUtil;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cache decorator for replica routing: while {@link ReadRoutingUtil#isPrimaryRequired()} is set, every lookup is a
+ * miss, so a client inside its read-your-writes window is answered from the primary rather than from an entry a
+ * lagging replica filled after the client's write evicted it. What such a read loads from the primary is still
+ * stored, as it is at least as fresh as whatever it replaces.
+ */
+public class ReadYourWritesCache implements Cache {
+
+    private final Cache delegate;
+
+    public ReadYourWritesCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return ReadRoutingUtil.isPrimaryRequired() ? null : delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return ReadRoutingUtil.isPrimaryRequired() ? null : delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (!ReadRoutingUtil.isPrimaryRequired()) {
+            return delegate.get(key, valueLoader);
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        delegate.put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (ReadRoutingUtil.isPrimaryRequired()) {
+            delegate.put(key, value);
+            return null;
+        }
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
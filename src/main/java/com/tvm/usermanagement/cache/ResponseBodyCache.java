@@ -0,0 +1,205 @@
+package com.tvm.usermanagement.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Encoded responses of {@code GET /api/users} and {@code GET /api/users/{id}}, in the {@code responses} cache, so a
+ * hit is written without running the controller or a message converter. Entries are keyed by path, query string
+ * and the request headers that select the representation. They are dropped together with the entity caches:
+ * a user's own entries when it changes, and every listing on any change, since listings carry the total count.
+ * Listings also expire as soon as the pages they are rendered from, as the count can change without an eviction.
+ */
+@Component
+public class ResponseBodyCache {
+
+    public static final String CACHE_NAME = "responses";
+
+    private static final String LISTING_PATH = "/api/users";
+    private static final Pattern USER_PATH = Pattern.compile("/api/users/(\\d{1,18})");
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // Direct buffers keep the bodies off the Java heap, so the garbage collector never copies or scans them
+    @Value("${user.cache.responses.off-heap:false}")
+    private boolean offHeap;
+
+    @Value("${user.cache.responses.max-entry-bytes:1048576}")
+    private int maxEntryBytes;
+
+    // Bumped by every eviction, so a body rendered from data read before an eviction is not stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The key for a cacheable request, or null when the request is not one of the cached routes.
+     */
+    public Key keyOf(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Long userId = null;
+        if (!LISTING_PATH.equals(path)) {
+            Matcher matcher = USER_PATH.matcher(path);
+            if (!matcher.matches()) {
+                return null;
+            }
+            userId = Long.valueOf(matcher.group(1));
+        }
+        return new Key(userId, path, request.getQueryString(), request.getHeader(HttpHeaders.ACCEPT), request.getHeader(HttpHeaders.ORIGIN));
+    }
+
+    public CachedResponse get(Key key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        return cache != null ? cache.get(key, CachedResponse.class) : null;
+    }
+
+    /**
+     * The value to pass to {@link #put} for a response that is about to be rendered.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores an encoded body unless it is too large or an eviction ran since {@code readGeneration} was taken.
+     */
+    public void put(Key key, String contentType, Map<String, List<String>> headers, byte[] body, long readGeneration) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null || body.length > maxEntryBytes || generation.get() != readGeneration) {
+            return;
+        }
+        cache.put(key, new CachedResponse(contentType, headers, body, offHeap));
+        // An eviction may have run between the check and the put
+        if (generation.get() != readGeneration) {
+            cache.evict(key);
+        }
+    }
+
+    /**
+     * Drops the responses of the given users and every listing.
+     */
+    public void evictUsers(Collection<Long> ids) {
+        Set<Long> idSet = Set.copyOf(ids);
+        evictIf(key -> key.isListing() || idSet.contains(key.userId));
+    }
+
+    public void evictListings() {
+        evictIf(Key::isListing);
+    }
+
+    public void evictAll() {
+        evictIf(key -> true);
+    }
+
+    // AFTER_COMMIT listeners run once the transaction's cache puts and evictions have been applied,
+    // so a response rendered after this eviction cannot come from a stale entity cache entry
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserCacheInvalidationEvent event) {
+        if (event.getUserIds() == null) {
+            evictListings();
+        } else {
+            evictUsers(event.getUserIds());
+        }
+    }
+
+    /**
+     * Expiry for the responses cache: a listing lives for {@code listingTtlMs}, a single user for {@code userTtlMs},
+     * both counted from the last write of the entry.
+     */
+    public static Expiry<Object, Object> expiry(long userTtlMs, long listingTtlMs) {
+        long userTtlNanos = TimeUnit.MILLISECONDS.toNanos(userTtlMs);
+        long listingTtlNanos = TimeUnit.MILLISECONDS.toNanos(listingTtlMs);
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return key instanceof Key responseKey && responseKey.isListing() ? listingTtlNanos : userTtlNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private void evictIf(Predicate<Key> predicate) {
+        generation.incrementAndGet();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            nativeCache.asMap().keySet().removeIf(key -> key instanceof Key responseKey && predicate.test(responseKey));
+        } else {
+            cache.invalidate();
+        }
+    }
+
+    /**
+     * Route, parameters and the headers that pick the content type and CORS headers of a response.
+     */
+    public static final class Key {
+
+        // Null for listings
+        private final Long userId;
+        private final String path;
+        private final String query;
+        private final String accept;
+        private final String origin;
+
+        Key(Long userId, String path, String query, String accept, String origin) {
+            this.userId = userId;
+            this.path = path;
+            this.query = query;
+            this.accept = accept;
+            this.origin = origin;
+        }
+
+        public boolean isListing() {
+            return userId == null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Objects.equals(userId, other.userId) && path.equals(other.path)
+                    && Objects.equals(query, other.query) && Objects.equals(accept, other.accept) && Objects.equals(origin, other.origin);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, query, accept, origin);
+        }
+
+        @Override
+        public String toString() {
+            return path + (query != null ? "?" + query : "") + " [" + accept + "]";
+        }
+    }
+}
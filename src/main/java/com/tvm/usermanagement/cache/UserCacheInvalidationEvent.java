@@ -0,0 +1,19 @@
+package com.tvm.usermanagement.cache;
+
+import java.util.List;
+
+/**
+ * Published when users change, so that other nodes can drop their copies. A null id list means
+ * the change is not tied to particular users (for example a bulk import) and every listing is affected.
+ */
+public class UserCacheInvalidationEvent {
+    private final List<Long> userIds;
+
+    public UserCacheInvalidationEvent(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+}
@@ -0,0 +1,205 @@
+package com.tvm.usermanagement.cache;
+
+import com.tvm.usermanagement.common.CursorPage;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selective invalidation of the user caches, for the cases a single {@code @CacheEvict} key cannot express.
+ * Local evictions requested inside a transaction run after it commits, like the annotation-driven evictions;
+ * the publish methods tell other nodes about the change.
+ */
+@Component
+public class UserCacheInvalidator {
+
+    private static final List<String> CACHE_NAMES = List.of("users", "allUsers", "usersPagination");
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${user.datasource.replica.urls:}")
+    private String replicaUrls;
+
+    @Value("${user.datasource.replica.max-lag-ms:5000}")
+    private long replicaMaxLagMs;
+
+    @Value("${user.datasource.replica.health-check-interval-ms:5000}")
+    private long replicaHealthCheckIntervalMs;
+
+    /**
+     * Announces that one user was created, updated or deleted.
+     */
+    public void publishUserChanged(Long id) {
+        eventPublisher.publishEvent(new UserCacheInvalidationEvent(List.of(id)));
+    }
+
+    /**
+     * Announces that several users changed in one operation, such as a bulk update or delete.
+     */
+    public void publishUsersChanged(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new UserCacheInvalidationEvent(List.copyOf(ids)));
+        }
+    }
+
+    /**
+     * Announces a change that affects every listing, such as a bulk import.
+     */
+    public void publishListingsChanged() {
+        eventPublisher.publishEvent(new UserCacheInvalidationEvent(null));
+    }
+
+    /**
+     * With read replicas, a read that a replica served before replaying a change can put the old rows back into
+     * the caches after the change was evicted. The change is therefore evicted a second time once every replica
+     * still in rotation must have replayed it: within the maximum lag plus one health check, after which a replica
+     * lagging further is taken out. A null id list repeats a listings eviction.
+     */
+    public void evictAgainAfterReplicaLag(List<Long> ids) {
+        if (replicaUrls.isBlank()) {
+            return;
+        }
+        Instant at = Instant.now().plusMillis(replicaMaxLagMs + replicaHealthCheckIntervalMs);
+        taskScheduler.schedule(() -> {
+            if (ids == null) {
+                evictListings();
+            } else {
+                evictUsers(ids);
+            }
+        }, at);
+    }
+
+    // Covers the writes of this node; other nodes' writes are repeated by the invalidation bus when it applies them
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserCacheInvalidationEvent event) {
+        evictAgainAfterReplicaLag(event.getUserIds());
+    }
+
+    /**
+     * Drops everything cached about one user: its own entry, the pages containing it and the full list.
+     */
+    public void evictUser(Long id) {
+        evictUsers(List.of(id));
+    }
+
+    /**
+     * Drops everything cached about the given users in one pass: their own entries, the pages containing
+     * any of them and the full list.
+     */
+    public void evictUsers(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> idSet = Set.copyOf(ids);
+        TransactionUtil.afterCommit(() -> {
+            Cache users = cacheManager.getCache("users");
+            if (users != null) {
+                idSet.forEach(users::evictIfPresent);
+            }
+            Cache allUsers = cacheManager.getCache("allUsers");
+            if (allUsers != null) {
+                allUsers.invalidate();
+            }
+        });
+        evictPagesContaining(idSet);
+        // Last, so no response can be rendered from an entity cache entry that is about to go
+        TransactionUtil.afterCommit(() -> responseBodyCache.evictUsers(idSet));
+    }
+
+    /**
+     * Clears every user cache.
+     */
+    public void evictAll() {
+        TransactionUtil.afterCommit(() -> {
+            for (String name : CACHE_NAMES) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null) {
+                    cache.invalidate();
+                }
+            }
+            responseBodyCache.evictAll();
+        });
+    }
+
+    /**
+     * Evicts only the cached pages that contain the given user.
+     */
+    public void evictPagesContaining(Long id) {
+        evictPagesContaining(Set.of(id));
+    }
+
+    private void evictPagesContaining(Set<Long> ids) {
+        TransactionUtil.afterCommit(() -> {
+            Cache cache = cacheManager.getCache("usersPagination");
+            if (cache == null) {
+                return;
+            }
+            if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                nativeCache.asMap().values().removeIf(page -> containsAnyUser(page, ids));
+            } else {
+                cache.invalidate();
+            }
+        });
+    }
+
+    /**
+     * Clears every cache that lists users; the by-id entries are left alone.
+     */
+    public void evictListings() {
+        TransactionUtil.afterCommit(() -> {
+            for (String name : List.of("allUsers", "usersPagination")) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null) {
+                    cache.invalidate();
+                }
+            }
+            responseBodyCache.evictListings();
+        });
+    }
+
+    private static boolean containsAnyUser(Object page, Set<Long> ids) {
+        List<?> content;
+        if (page instanceof Slice<?> offsetPage) {
+            content = offsetPage.getContent();
+        } else if (page instanceof CursorPage<?> cursorPage) {
+            content = cursorPage.getContent();
+        } else {
+            return false;
+        }
+        for (Object user : content) {
+            if (user instanceof UserModel userModel && ids.contains(userModel.getId())) {
+                return true;
+            }
+            // Sparse fieldset rows always carry the id
+            if (user instanceof Map<?, ?> row && ids.contains(row.get("id"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,10 +1,18 @@
 package com.tvm.usermanagement.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class ApiResponse<T> {
     private int status;
     private String message;
     private int recordCount;
     private T data;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    // For deserializing responses (Jackson, ProtobufUtil) in clients and tests
+    public ApiResponse() {
+    }
 
     public ApiResponse(int status, String message, int recordCount, T data) {
         this.status = status;
@@ -13,6 +21,11 @@ public class ApiResponse<T> {
         this.data = data;
     }
 
+    public ApiResponse(int status, String message, int recordCount, T data, String nextCursor) {
+        this(status, message, recordCount, data);
+        this.nextCursor = nextCursor;
+    }
+
     public int getStatus() {
         return status;
     }
@@ -44,4 +57,12 @@ public class ApiResponse<T> {
     public void setData(T data) {
         this.data = data;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
\ No newline at end of file
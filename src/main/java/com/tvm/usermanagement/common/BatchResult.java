@@ -0,0 +1,24 @@
+package com.tvm.usermanagement.common;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: the items found, in request order, and the requested ids that do not exist.
+ */
+public class BatchResult<T> {
+    private final List<T> items;
+    private final List<Long> missingIds;
+
+    public BatchResult(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+}
@@ -0,0 +1,64 @@
+package com.tvm.usermanagement.common;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one id in a bulk update or delete.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String FAILED = "FAILED";
+
+    private final Long id;
+    private final String status;
+    private final String field;
+    private final String message;
+
+    private BulkItemResult(Long id, String status, String field, String message) {
+        this.id = id;
+        this.status = status;
+        this.field = field;
+        this.message = message;
+    }
+
+    public static BulkItemResult updated(Long id) {
+        return new BulkItemResult(id, UPDATED, null, null);
+    }
+
+    public static BulkItemResult deleted(Long id) {
+        return new BulkItemResult(id, DELETED, null, null);
+    }
+
+    public static BulkItemResult notFound(Long id) {
+        return new BulkItemResult(id, NOT_FOUND, null, "User not found with id " + id);
+    }
+
+    public static BulkItemResult failed(Long id, String field, String message) {
+        return new BulkItemResult(id, FAILED, field, message);
+    }
+
+    @JsonIgnore
+    public boolean isApplied() {
+        return UPDATED.equals(status) || DELETED.equals(status);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
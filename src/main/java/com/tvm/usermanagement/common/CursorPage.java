@@ -0,0 +1,28 @@
+package com.tvm.usermanagement.common;
+
+import java.util.List;
+
+/**
+ * A page of results read by keyset, with the cursor for the following page (null on the last page).
+ */
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
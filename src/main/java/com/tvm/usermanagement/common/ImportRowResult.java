@@ -0,0 +1,54 @@
+package com.tvm.usermanagement.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of a single row of a bulk import, streamed back to the client as one NDJSON line.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRowResult {
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    private final long row;
+    private final String status;
+    private final Long id;
+    private final String field;
+    private final String message;
+
+    private ImportRowResult(long row, String status, Long id, String field, String message) {
+        this.row = row;
+        this.status = status;
+        this.id = id;
+        this.field = field;
+        this.message = message;
+    }
+
+    public static ImportRowResult created(long row, Long id) {
+        return new ImportRowResult(row, CREATED, id, null, null);
+    }
+
+    public static ImportRowResult failed(long row, String field, String message) {
+        return new ImportRowResult(row, FAILED, null, field, message);
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,55 @@
+package com.tvm.usermanagement.common;
+
+import com.tvm.usermanagement.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor holding the sort field, the last sort key and the last id of a page.
+ */
+public class PageCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private final String sortBy;
+    private final Long lastId;
+    private final String lastSortKey;
+
+    public PageCursor(String sortBy, Long lastId, String lastSortKey) {
+        this.sortBy = sortBy;
+        this.lastId = lastId;
+        this.lastSortKey = lastSortKey;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public String getLastSortKey() {
+        return lastSortKey;
+    }
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + lastId + SEPARATOR + lastSortKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // The sort key goes last so that it may itself contain the separator
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (parts.length != 3) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            return new PageCursor(parts[0], Long.valueOf(parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+}
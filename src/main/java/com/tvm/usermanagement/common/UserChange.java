@@ -0,0 +1,51 @@
+package com.tvm.usermanagement.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tvm.usermanagement.model.UserModel;
+
+import java.time.Instant;
+
+/**
+ * One entry of the user change feed. {@code user} is the row as it was right after the change, and is absent for
+ * deletes. {@code seq} is the position in the feed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserChange {
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private final long seq;
+    private final Long userId;
+    private final String type;
+    private final UserModel user;
+    private final Instant changedAt;
+
+    public UserChange(long seq, Long userId, String type, UserModel user, Instant changedAt) {
+        this.seq = seq;
+        this.userId = userId;
+        this.type = type;
+        this.user = user;
+        this.changedAt = changedAt;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public UserModel getUser() {
+        return user;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,59 @@
+package com.tvm.usermanagement.common;
+
+import com.tvm.usermanagement.model.UserModel;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * User fields a client can ask for with {@code fields=}. The id is always part of a sparse fieldset, so rows
+ * can still be addressed, paged and invalidated.
+ */
+public enum UserField {
+    ID("id"),
+    USERNAME("username"),
+    NAME("name"),
+    EMAIL("email"),
+    VERSION("version");
+
+    private final String column;
+
+    UserField(String column) {
+        this.column = column;
+    }
+
+    // Also the property name in responses
+    public String getColumn() {
+        return column;
+    }
+
+    public Object readFrom(UserModel user) {
+        return switch (this) {
+            case ID -> user.getId();
+            case USERNAME -> user.getUsername();
+            case NAME -> user.getName();
+            case EMAIL -> user.getEmail();
+            case VERSION -> user.getVersion();
+        };
+    }
+
+    /**
+     * Parses a comma-separated list such as {@code id,username}; unknown names are rejected.
+     */
+    public static Set<UserField> parse(String fields) {
+        Set<UserField> parsed = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            parsed.add(fromParam(name.trim()));
+        }
+        return parsed;
+    }
+
+    public static UserField fromParam(String param) {
+        for (UserField field : values()) {
+            if (field.column.equalsIgnoreCase(param)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + param);
+    }
+}
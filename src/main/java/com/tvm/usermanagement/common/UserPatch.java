@@ -0,0 +1,58 @@
+package com.tvm.usermanagement.common;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Body of a PATCH request: only the non-null fields are applied. {@code version}, when given, must match the
+ * stored version of the user, so an edit based on a stale read is rejected.
+ */
+public class UserPatch {
+
+    // Present fields must not be blank
+    private static final String NOT_BLANK = ".*\\S.*";
+
+    @Pattern(regexp = NOT_BLANK, message = "Username is required")
+    private String username;
+
+    @Pattern(regexp = NOT_BLANK, message = "Name is required")
+    private String name;
+
+    @Email(message = "Invalid email address")
+    @Pattern(regexp = NOT_BLANK, message = "Email is required")
+    private String email;
+
+    private Long version;
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
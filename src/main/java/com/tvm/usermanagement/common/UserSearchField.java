@@ -0,0 +1,32 @@
+package com.tvm.usermanagement.common;
+
+import java.util.List;
+
+/**
+ * Fields the user search can match against; {@link #ANY} matches if any of them does.
+ */
+public enum UserSearchField {
+    ANY(List.of("username", "name", "email")),
+    USERNAME(List.of("username")),
+    NAME(List.of("name")),
+    EMAIL(List.of("email"));
+
+    private final List<String> columns;
+
+    UserSearchField(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public static UserSearchField fromParam(String param) {
+        for (UserSearchField field : values()) {
+            if (field.name().equalsIgnoreCase(param)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown search field: " + param);
+    }
+}
@@ -0,0 +1,58 @@
+package com.tvm.usermanagement.common;
+
+import java.util.Objects;
+
+/**
+ * A listing order: a whitelisted field, ascending or descending, with the id as tie-breaker in the same direction.
+ */
+public final class UserSort {
+
+    public static final String DESC = "desc";
+    public static final String ASC = "asc";
+
+    private final UserSortField field;
+    private final boolean ascending;
+
+    public UserSort(UserSortField field, boolean ascending) {
+        this.field = field;
+        this.ascending = ascending;
+    }
+
+    /**
+     * Parses the {@code sortBy} and {@code sortDir} request parameters; anything outside the whitelist is rejected.
+     */
+    public static UserSort of(String sortBy, String sortDir) {
+        if (!ASC.equalsIgnoreCase(sortDir) && !DESC.equalsIgnoreCase(sortDir)) {
+            throw new IllegalArgumentException("Unsupported sort direction: " + sortDir);
+        }
+        return new UserSort(UserSortField.fromParam(sortBy), ASC.equalsIgnoreCase(sortDir));
+    }
+
+    public UserSortField getField() {
+        return field;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    // Identifies the order in cursors and cache keys; descending keeps the bare field name cursors always used
+    public String getKey() {
+        return ascending ? field.getColumn() + ":" + ASC : field.getColumn();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UserSort other && field == other.field && ascending == other.ascending;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(field, ascending);
+    }
+
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
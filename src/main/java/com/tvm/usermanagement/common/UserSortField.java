@@ -0,0 +1,44 @@
+package com.tvm.usermanagement.common;
+
+import com.tvm.usermanagement.model.UserModel;
+
+/**
+ * Fields user listings can be sorted by. Each one has a {@code (field, id)} index (see {@code UserModel}), so pages
+ * in either direction are read straight from an index instead of sorting the table.
+ */
+public enum UserSortField {
+    ID("id"),
+    USERNAME("username"),
+    NAME("name"),
+    EMAIL("email");
+
+    private final String column;
+
+    UserSortField(String column) {
+        this.column = column;
+    }
+
+    // Also the entity property name
+    public String getColumn() {
+        return column;
+    }
+
+    // The value a keyset cursor resumes from
+    public String keyOf(UserModel user) {
+        return switch (this) {
+            case ID -> String.valueOf(user.getId());
+            case USERNAME -> user.getUsername();
+            case NAME -> user.getName();
+            case EMAIL -> user.getEmail();
+        };
+    }
+
+    public static UserSortField fromParam(String param) {
+        for (UserSortField field : values()) {
+            if (field.column.equalsIgnoreCase(param)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + param);
+    }
+}
@@ -0,0 +1,70 @@
+package com.tvm.usermanagement.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.tvm.usermanagement.cache.CachedResponse;
+import com.tvm.usermanagement.cache.ReadYourWritesCache;
+import com.tvm.usermanagement.cache.ResponseBodyCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Bounded Caffeine caches for the user service. Each cache has its own size bound, TTL and statistics,
+ * configured as a Caffeine spec under {@code user.cache.<name>.spec}.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${user.cache.users.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}")
+    private String usersSpec;
+
+    @Value("${user.cache.allUsers.spec:maximumSize=1,expireAfterWrite=1m,recordStats}")
+    private String allUsersSpec;
+
+    @Value("${user.cache.usersPagination.spec:maximumSize=1000,expireAfterWrite=30s,recordStats}")
+    private String usersPaginationSpec;
+
+    // Encoded responses (ResponseBodyCache), weighed in bytes, so the spec has to bound maximumWeight rather than maximumSize.
+    // Expiry is set per entry below, so the spec must not set expireAfterWrite or expireAfterAccess
+    @Value("${user.cache.responses.spec:maximumWeight=67108864,recordStats}")
+    private String responsesSpec;
+
+    @Value("${user.cache.responses.user-ttl-ms:600000}")
+    private long responsesUserTtlMs;
+
+    // No longer than the usersPagination TTL, or cached listings outlive the pages they were rendered from
+    @Value("${user.cache.responses.listing-ttl-ms:30000}")
+    private long responsesListingTtlMs;
+
+    @Value("${user.datasource.replica.urls:}")
+    private String replicaUrls;
+
+    @Bean
+    public CacheManager cacheManager() {
+        // With replicas, reads that must see the primary skip every cache (ReadYourWritesFilter)
+        CaffeineCacheManager cacheManager = replicaUrls.isBlank() ? new CaffeineCacheManager() : new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new ReadYourWritesCache(super.adaptCaffeineCache(name, cache));
+            }
+        };
+        // Only the caches registered below exist; an unknown cache name fails instead of creating an unbounded cache
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache("users", Caffeine.from(CaffeineSpec.parse(usersSpec)).build());
+        cacheManager.registerCustomCache("allUsers", Caffeine.from(CaffeineSpec.parse(allUsersSpec)).build());
+        cacheManager.registerCustomCache("usersPagination", Caffeine.from(CaffeineSpec.parse(usersPaginationSpec)).build());
+        cacheManager.registerCustomCache(ResponseBodyCache.CACHE_NAME, Caffeine.from(CaffeineSpec.parse(responsesSpec))
+                .weigher((Object key, Object value) -> value instanceof CachedResponse response ? response.size() : 1)
+                .expireAfter(ResponseBodyCache.expiry(responsesUserTtlMs, responsesListingTtlMs))
+                .build());
+        // Cache puts and evictions issued inside a transaction are applied after it commits
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
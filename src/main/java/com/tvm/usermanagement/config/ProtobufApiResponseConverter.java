@@ -0,0 +1,77 @@
+package com.tvm.usermanagement.config;
+
+import com.tvm.usermanagement.common.ApiResponse;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.util.ProtobufUtil;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes {@code ApiResponse<UserModel>} and {@code ApiResponse<List<UserModel>>} as {@code application/x-protobuf}
+ * for clients that ask for it. Responses with other data types are not writable, so such requests get 406.
+ * Error responses ({@code ApiResponse<Object>} without data) are encoded too.
+ */
+public class ProtobufApiResponseConverter extends AbstractGenericHttpMessageConverter<ApiResponse<?>> {
+
+    public ProtobufApiResponseConverter() {
+        super(MediaType.parseMediaType(ProtobufUtil.MEDIA_TYPE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!supports(clazz) || !canWrite(mediaType)) {
+            return false;
+        }
+        if (type == null) {
+            return true;
+        }
+        ResolvableType data = ResolvableType.forType(type).as(ApiResponse.class).getGeneric(0);
+        Class<?> dataClass = data.resolve(Object.class);
+        return dataClass == Object.class
+                || UserModel.class.isAssignableFrom(dataClass)
+                || (List.class.isAssignableFrom(dataClass) && UserModel.class.isAssignableFrom(data.getGeneric(0).resolve(Object.class)));
+    }
+
+    @Override
+    protected void writeInternal(ApiResponse<?> response, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try {
+            ProtobufUtil.write(response, outputMessage.getBody());
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotWritableException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected ApiResponse<?> readInternal(Class<? extends ApiResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    public ApiResponse<?> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+}
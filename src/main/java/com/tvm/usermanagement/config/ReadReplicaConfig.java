@@ -0,0 +1,87 @@
+package com.tvm.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to replica pools when {@code user.datasource.replica.urls} is set; everything
+ * else, including reads outside a read-only transaction such as {@code checkUserExists}, stays on the primary.
+ * The application DataSource is a {@link LazyConnectionDataSourceProxy}, which only picks a pool when the first
+ * statement runs, by which point the transaction manager has marked the connection read-only or not.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.datasource.replica.urls")
+public class ReadReplicaConfig {
+
+    @Value("${user.datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${user.datasource.replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${user.datasource.replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${user.datasource.replica.maximum-pool-size:20}")
+    private int replicaPoolSize;
+
+    // Short, so a dead replica costs a read this long once before it is taken out of rotation
+    @Value("${user.datasource.replica.connection-timeout-ms:1000}")
+    private long replicaConnectionTimeoutMs;
+
+    @Value("${user.datasource.replica.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    /**
+     * The primary pool, configured from {@code spring.datasource.*} like Boot's own pool would be.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource, ObjectProvider<MeterRegistry> meterRegistry) {
+        List<HikariDataSource> pools = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(replicaUrls.get(i).trim());
+            pool.setUsername(replicaUsername);
+            pool.setPassword(replicaPassword);
+            pool.setMaximumPoolSize(replicaPoolSize);
+            pool.setConnectionTimeout(replicaConnectionTimeoutMs);
+            pool.setReadOnly(true);
+            // Start even when a replica is down; it stays out of rotation until a health check succeeds
+            pool.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            pools.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, pools, maxLagMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,85 @@
+package com.tvm.usermanagement.config;
+
+import com.tvm.usermanagement.util.ReadRoutingUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Read-your-writes for replica routing. A write request gets a cookie holding the time until which the client's
+ * reads must not be served by a replica that may not have caught up yet; requests carrying an unexpired cookie
+ * read from the primary and skip the caches, which a lagging replica may have refilled with the old state. The state
+ * lives with the client, so it holds whichever node serves the next request.
+ */
+@Component
+@ConditionalOnProperty(name = "user.datasource.replica.urls")
+// Ahead of ResponseCacheFilter, whose lookup has to see the routing decision
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "user_read_primary_until";
+
+    private final long windowMs;
+
+    public ReadYourWritesFilter(@Value("${user.datasource.replica.read-your-writes-ms:5000}") long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())
+                && !HttpMethod.OPTIONS.matches(request.getMethod());
+        if (write) {
+            // Set before the response is committed; a write that fails only costs the client a few primary reads
+            ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, String.valueOf(now + windowMs))
+                    .path("/")
+                    .httpOnly(true)
+                    .maxAge((windowMs + 999) / 1000)
+                    .build();
+            response.addHeader("Set-Cookie", cookie.toString());
+        }
+
+        // The cookie comes from the client, so a value further out than one window is ignored
+        long primaryUntil = primaryRequiredUntil(request);
+        if (write || (primaryUntil > now && primaryUntil <= now + windowMs)) {
+            ReadRoutingUtil.requirePrimary();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                ReadRoutingUtil.clear();
+            }
+        } else {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static long primaryRequiredUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,112 @@
+package com.tvm.usermanagement.config;
+
+import com.tvm.usermanagement.util.ReadRoutingUtil;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read-only side of the routing DataSource: hands out connections from a healthy replica pool, round-robin,
+ * and falls back to the primary when no replica is usable or the current thread must read its own writes.
+ * Replicas are health checked on a schedule; one that fails a connection attempt is taken out straight away
+ * and comes back after its next successful check.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    // Replication lag in milliseconds; zero when the replica has replayed everything it received, or is not a standby at all
+    private static final String LAG_SQL = "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END::bigint";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools, long maxLagMs) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadRoutingUtil.isPrimaryRequired()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (replica.healthy) {
+                    try {
+                        return replica.pool.getConnection();
+                    } catch (SQLException e) {
+                        markDown(replica, e.getMessage());
+                    }
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Connections use the pool credentials");
+    }
+
+    /**
+     * Takes replicas that are unreachable or lag too far behind out of rotation and puts recovered ones back.
+     */
+    @Scheduled(fixedDelayString = "${user.datasource.replica.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+                resultSet.next();
+                long lagMs = resultSet.getLong(1);
+                if (lagMs > maxLagMs) {
+                    markDown(replica, "replication lag " + lagMs + " ms");
+                } else if (!replica.healthy) {
+                    replica.healthy = true;
+                    logger.info("Replica {} is back in rotation - lag: {} ms", replica.pool.getPoolName(), lagMs);
+                }
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    public long getHealthyReplicaCount() {
+        return replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            logger.warn("Replica {} taken out of rotation, reads fall back to other replicas or the primary: {}", replica.pool.getPoolName(), reason);
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        private volatile boolean healthy = true;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.tvm.usermanagement.config;
+
+import com.tvm.usermanagement.cache.CachedResponse;
+import com.tvm.usermanagement.cache.ResponseBodyCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Serves cached reads from {@link ResponseBodyCache} as stored bytes. On a miss the response is buffered, sent
+ * as usual and, if it is a 200, stored. Compression is applied by the connector afterwards, so bodies are cached
+ * uncompressed and every Accept-Encoding is served from the same entry.
+ */
+@Component
+@ConditionalOnProperty(name = "user.cache.responses.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    // Per-response or connection-level headers that must not be replayed
+    private static final Set<String> EXCLUDED_HEADERS = Set.of(HttpHeaders.SET_COOKIE.toLowerCase(), HttpHeaders.CONTENT_TYPE.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(), HttpHeaders.DATE.toLowerCase(), HttpHeaders.TRANSFER_ENCODING.toLowerCase());
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ResponseBodyCache.Key key = responseBodyCache.keyOf(request);
+        if (key == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CachedResponse cached = responseBodyCache.get(key);
+        if (cached != null) {
+            cached.writeTo(request, response);
+            return;
+        }
+
+        long generation = responseBodyCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() == HttpServletResponse.SC_OK && wrapper.getContentType() != null && !request.isAsyncStarted()) {
+                responseBodyCache.put(key, wrapper.getContentType(), headersOf(wrapper), wrapper.getContentAsByteArray(), generation);
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private static Map<String, List<String>> headersOf(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!EXCLUDED_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+}
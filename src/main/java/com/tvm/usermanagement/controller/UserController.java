@@ -1,21 +1,42 @@
 package com.tvm.usermanagement.controller;
 
 import com.tvm.usermanagement.common.ApiResponse;
+import com.tvm.usermanagement.common.BatchResult;
+import com.tvm.usermanagement.common.BulkItemResult;
+import com.tvm.usermanagement.common.CursorPage;
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.common.UserField;
+import com.tvm.usermanagement.common.UserPatch;
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.exception.PreconditionFailedException;
 import com.tvm.usermanagement.exception.UserNotFoundException;
 import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.service.UserBulkService;
+import com.tvm.usermanagement.service.UserChangeFeed;
+import com.tvm.usermanagement.service.UserExportService;
+import com.tvm.usermanagement.service.UserImportService;
 import com.tvm.usermanagement.service.UserService;
+import com.tvm.usermanagement.util.ETagUtil;
 import com.tvm.usermanagement.util.ResponseUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:3000")
@@ -23,10 +44,26 @@ import java.util.List;
 public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int MAX_BATCH_IDS = 1000;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int MAX_BULK_ITEMS = 10000;
+    private static final int MAX_CHANGES_PAGE_SIZE = 1000;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
     /**
      * Creates a new user.
      */
@@ -46,26 +83,188 @@ public class UserController {
 
         UserModel createdUser = userService.createUser(userModel);
         logger.info("User created successfully with ID: {}", createdUser.getId());
-        return ResponseUtil.createResponse(HttpStatus.CREATED, "User created successfully", 0, createdUser);
+        return ResponseUtil.withETag(ResponseUtil.createResponse(HttpStatus.CREATED, "User created successfully", 0, createdUser), ETagUtil.forUser(createdUser));
+    }
+
+    /**
+     * Imports users in bulk from an NDJSON or CSV request body.
+     * The per-row report is streamed back as NDJSON while the import runs.
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"}, produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importUsers(HttpServletRequest request) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        String format = "csv".equals(contentType.getSubtype()) ? UserImportService.FORMAT_CSV : UserImportService.FORMAT_NDJSON;
+        logger.info("Importing users in bulk - format: {}", format);
+
+        InputStream body = request.getInputStream();
+        StreamingResponseBody report = out -> userImportService.importUsers(body, format, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(report);
+    }
+
+    /**
+     * Exports every user as NDJSON (default) or CSV, streamed straight from a database cursor.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        logger.info("Exporting all users - format: {}", format);
+
+        boolean csv = UserExportService.FORMAT_CSV.equalsIgnoreCase(format);
+        String exportFormat = csv ? UserExportService.FORMAT_CSV : UserExportService.FORMAT_NDJSON;
+        StreamingResponseBody body = out -> userExportService.exportUsers(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+                .header("Content-Disposition", "attachment; filename=users." + exportFormat)
+                .body(body);
     }
 
     /**
-     * Retrieves all users with pagination and sorting.
+     * Retrieves all users with pagination and sorting by id, username, name or email ({@code sortBy}),
+     * {@code sortDir=desc} (default) or {@code asc}.
+     * Passing {@code mode=cursor} or a {@code cursor} switches to keyset pagination, where each page
+     * carries the {@code nextCursor} to send back for the following one.
      */
     @GetMapping
     public ResponseEntity<ApiResponse<List<UserModel>>> getAllUsers(
             @RequestParam(name = "offset", defaultValue = "0") int offset,
             @RequestParam(name = "pageSize", defaultValue = "10") int pageSize,
-            @RequestParam(name = "sortBy", defaultValue = "id") String sortBy) {
-        logger.info("Retrieving all users with pagination - offset: {}, pageSize: {}, sortBy: {}", offset, pageSize, sortBy);
+            @RequestParam(name = "sortBy", defaultValue = "id") String sortBy,
+            @RequestParam(name = "sortDir", defaultValue = UserSort.DESC) String sortDir,
+            @RequestParam(name = "mode", defaultValue = "offset") String mode,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        UserSort sort;
+        try {
+            sort = UserSort.of(sortBy, sortDir);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Retrieving all users failed: {}", e.getMessage());
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, e.getMessage(), 0, null);
+        }
+        if (pageSize < 1 || offset < 0) {
+            String errorMessage = "A pageSize of at least 1 and a non-negative offset are required.";
+            logger.warn("Retrieving all users failed: {}", errorMessage);
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
+        }
+        long totalUsers = userService.getTotalUsersCount();
 
+        if ("cursor".equals(mode) || cursor != null) {
+            logger.info("Retrieving all users with keyset pagination - cursor: {}, pageSize: {}, sort: {}", cursor, pageSize, sort);
+            CursorPage<UserModel> usersPage = userService.getUsersByCursor(cursor, pageSize, sort);
+            return ResponseUtil.withETag(
+                    ResponseUtil.createResponse(HttpStatus.OK, "All users retrieved successfully.", (int) totalUsers, usersPage.getContent(), usersPage.getNextCursor()),
+                    ETagUtil.forPage(usersPage.getContent(), totalUsers, usersPage.getNextCursor()));
+        }
+
+        logger.info("Retrieving all users with pagination - offset: {}, pageSize: {}, sort: {}", offset, pageSize, sort);
+        Slice<UserModel> usersWithPagination = userService.getAllUsersByPagination(offset, pageSize, sort);
+        return ResponseUtil.withETag(
+                ResponseUtil.createResponse(HttpStatus.OK, "All users retrieved successfully.", (int) totalUsers, usersWithPagination.getContent()),
+                ETagUtil.forPage(usersWithPagination.getContent(), totalUsers, null));
+    }
+
+    /**
+     * Same as {@code GET /api/users}, returning only the comma-separated {@code fields} (plus the id) of each user,
+     * e.g. {@code GET /api/users?fields=id,username}. Only those columns are read from the database.
+     */
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAllUserFields(
+            @RequestParam(name = "fields") String fields,
+            @RequestParam(name = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "pageSize", defaultValue = "10") int pageSize,
+            @RequestParam(name = "sortBy", defaultValue = "id") String sortBy,
+            @RequestParam(name = "sortDir", defaultValue = UserSort.DESC) String sortDir,
+            @RequestParam(name = "mode", defaultValue = "offset") String mode,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        Set<UserField> userFields;
+        UserSort sort;
+        try {
+            userFields = UserField.parse(fields);
+            sort = UserSort.of(sortBy, sortDir);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Retrieving user fields failed: {}", e.getMessage());
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, e.getMessage(), 0, null);
+        }
+        if (pageSize < 1 || offset < 0) {
+            String errorMessage = "A pageSize of at least 1 and a non-negative offset are required.";
+            logger.warn("Retrieving user fields failed: {}", errorMessage);
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
+        }
         long totalUsers = userService.getTotalUsersCount();
-        Page<UserModel> usersWithPagination = userService.getAllUsersByPagination(offset, pageSize, sortBy);
-        return ResponseUtil.createResponse(HttpStatus.OK, "All users retrieved successfully.", (int) totalUsers, usersWithPagination.getContent());
+
+        if ("cursor".equals(mode) || cursor != null) {
+            logger.info("Retrieving user fields with keyset pagination - fields: {}, cursor: {}, pageSize: {}, sort: {}", fields, cursor, pageSize, sort);
+            CursorPage<Map<String, Object>> rowsPage = userService.getUserFieldsByCursor(userFields, cursor, pageSize, sort);
+            return ResponseUtil.withETag(
+                    ResponseUtil.createResponse(HttpStatus.OK, "All users retrieved successfully.", (int) totalUsers, rowsPage.getContent(), rowsPage.getNextCursor()),
+                    ETagUtil.forRows(rowsPage.getContent(), totalUsers, rowsPage.getNextCursor()));
+        }
+
+        logger.info("Retrieving user fields with pagination - fields: {}, offset: {}, pageSize: {}, sort: {}", fields, offset, pageSize, sort);
+        Slice<Map<String, Object>> rows = userService.getUserFieldsByPagination(userFields, offset, pageSize, sort);
+        return ResponseUtil.withETag(
+                ResponseUtil.createResponse(HttpStatus.OK, "All users retrieved successfully.", (int) totalUsers, rows.getContent()),
+                ETagUtil.forRows(rows.getContent(), totalUsers, null));
+    }
+
+    /**
+     * Searches users by username, name and/or email, e.g. {@code GET /api/users/search?q=ann&field=email&mode=prefix}.
+     * Matching is case-insensitive; results are newest first and paged with {@code cursor}/{@code nextCursor}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<UserModel>>> searchUsers(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "field", defaultValue = "any") String field,
+            @RequestParam(name = "mode", defaultValue = "substring") String mode,
+            @RequestParam(name = "pageSize", defaultValue = "20") int pageSize,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        logger.info("Searching users - q: {}, field: {}, mode: {}, pageSize: {}, cursor: {}", query, field, mode, pageSize, cursor);
+
+        UserSearchField searchField;
+        try {
+            searchField = UserSearchField.fromParam(field);
+        } catch (IllegalArgumentException e) {
+            logger.warn("User search failed: {}", e.getMessage());
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, e.getMessage(), 0, null);
+        }
+        if (query.isBlank() || pageSize < 1 || pageSize > MAX_SEARCH_PAGE_SIZE
+                || !("substring".equals(mode) || "prefix".equals(mode))) {
+            String errorMessage = "A non-blank q, mode=substring|prefix and a pageSize between 1 and " + MAX_SEARCH_PAGE_SIZE + " are required.";
+            logger.warn("User search failed: {}", errorMessage);
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
+        }
+
+        CursorPage<UserModel> results = userService.searchUsers(query.trim(), searchField, "prefix".equals(mode), cursor, pageSize);
+        return ResponseUtil.createResponse(HttpStatus.OK, "Users retrieved successfully.", results.getContent().size(), results.getContent(), results.getNextCursor());
     }
 
     /**
-     * Retrieves a user by ID.
+     * Change feed: users created, updated and deleted after feed position {@code after}, oldest first, at most
+     * {@code limit} per call. {@code nextCursor} is the position to send as {@code after} next time. Without
+     * {@code after} no changes are returned, only the current position, to follow the feed from after a full load.
+     * Delivery is at least once, so consumers should apply changes idempotently, by user id and version.
+     * A position older than the retained history gets 410 Gone.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<List<UserChange>>> getUserChanges(
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "limit", defaultValue = "500") int limit) {
+        logger.info("Retrieving user changes - after: {}, limit: {}", after, limit);
+        if (limit < 1 || limit > MAX_CHANGES_PAGE_SIZE) {
+            String errorMessage = "limit must be between 1 and " + MAX_CHANGES_PAGE_SIZE + ".";
+            logger.warn("Retrieving user changes failed: {}", errorMessage);
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
+        }
+
+        if (after == null) {
+            return ResponseUtil.createResponse(HttpStatus.OK, "Current change feed position retrieved successfully.", 0,
+                    List.of(), String.valueOf(userChangeFeed.getHead()));
+        }
+        List<UserChange> changes = userChangeFeed.getChanges(after, limit);
+        long next = changes.isEmpty() ? after : changes.get(changes.size() - 1).getSeq();
+        return ResponseUtil.createResponse(HttpStatus.OK, "User changes retrieved successfully.", changes.size(), changes, String.valueOf(next));
+    }
+
+    /**
+     * Retrieves a user by ID. The ETag is the user's id and version, so a matching If-None-Match gets a 304
+     * straight from the cached entity.
      */
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<UserModel>> getUserById(@PathVariable Long id) {
@@ -73,7 +272,7 @@ public class UserController {
 
         UserModel user = userService.getUserById(id);
         if (user != null) {
-            return ResponseUtil.createResponse(HttpStatus.OK, "User retrieved successfully.", 0, user);
+            return ResponseUtil.withETag(ResponseUtil.createResponse(HttpStatus.OK, "User retrieved successfully.", 0, user), ETagUtil.forUser(user));
         } else {
             logger.warn("User not found with ID: {}", id);
             throw new UserNotFoundException("User not found with id " + id);
@@ -81,10 +280,61 @@ public class UserController {
     }
 
     /**
-     * Updates an existing user.
+     * Same as {@code GET /api/users/{id}}, returning only the comma-separated {@code fields} (plus the id).
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getUserFieldsById(@PathVariable Long id, @RequestParam(name = "fields") String fields) {
+        logger.info("Retrieving user fields with ID: {}, fields: {}", id, fields);
+
+        Set<UserField> userFields;
+        try {
+            userFields = UserField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Retrieving user fields failed: {}", e.getMessage());
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, e.getMessage(), 0, null);
+        }
+
+        Map<String, Object> row = userService.getUserFieldsById(id, userFields);
+        if (row == null) {
+            logger.warn("User not found with ID: {}", id);
+            throw new UserNotFoundException("User not found with id " + id);
+        }
+        return ResponseUtil.withETag(ResponseUtil.createResponse(HttpStatus.OK, "User retrieved successfully.", 0, row),
+                ETagUtil.forRows(List.of(row), 0, null));
+    }
+
+    /**
+     * Retrieves several users by ID in one request, e.g. {@code GET /api/users?ids=1,2,3}.
+     * Users are returned in request order and unknown ids are listed in {@code missingIds}.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<ApiResponse<BatchResult<UserModel>>> getUsersByIds(@RequestParam(name = "ids") List<Long> ids) {
+        return batchGetUsers(ids);
+    }
+
+    /**
+     * Same as {@code GET /api/users?ids=...}, for id lists too long for a query string.
+     */
+    @PostMapping("/batch-get")
+    public ResponseEntity<ApiResponse<BatchResult<UserModel>>> batchGetUsers(@RequestBody List<Long> ids) {
+        logger.info("Retrieving {} users by ID", ids.size());
+
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS || ids.contains(null)) {
+            String errorMessage = "Between 1 and " + MAX_BATCH_IDS + " non-null ids are required.";
+            logger.warn("Batch retrieval failed: {}", errorMessage);
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
+        }
+
+        BatchResult<UserModel> result = userService.getUsersByIds(ids);
+        return ResponseUtil.createResponse(HttpStatus.OK, "Users retrieved successfully.", result.getItems().size(), result);
+    }
+
+    /**
+     * Updates an existing user. With {@code If-Match}, the update only applies to the version that ETag names.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserModel>> updateUser(@PathVariable Long id, @Valid @RequestBody UserModel userModel, BindingResult bindingResult) {
+    public ResponseEntity<ApiResponse<UserModel>> updateUser(@PathVariable Long id, @Valid @RequestBody UserModel userModel, BindingResult bindingResult,
+                                                             @RequestHeader(name = "If-Match", required = false) String ifMatch) {
         logger.info("Updating user with ID: {}", id);
 
         // Check for validation errors
@@ -94,7 +344,10 @@ public class UserController {
             return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
         }
 
-        userService.checkUserExists(userModel);
+        if (ifMatch != null) {
+            userModel.setVersion(checkIfMatch(id, ifMatch));
+        }
+        userService.checkUserExists(userModel, id);
 
         UserModel updatedUser = userService.updateUser(id, userModel);
         if (updatedUser == null) {
@@ -103,14 +356,83 @@ public class UserController {
         }
 
         logger.info("User updated successfully with ID: {}", id);
-        return ResponseUtil.createResponse(HttpStatus.OK, "User updated successfully", 0, updatedUser);
+        return ResponseUtil.withETag(ResponseUtil.createResponse(HttpStatus.OK, "User updated successfully", 0, updatedUser), ETagUtil.forUser(updatedUser));
     }
 
     /**
-     * Deletes a user by ID.
+     * Partially updates a user: only the fields present in the body change, and only those columns are written.
+     * Sending the {@code version} last read makes the update fail with 409 if someone else changed the user since;
+     * {@code If-Match} does the same with the ETag and fails with 412.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<ApiResponse<UserModel>> patchUser(@PathVariable Long id, @Valid @RequestBody UserPatch patch, BindingResult bindingResult,
+                                                            @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        logger.info("Patching user with ID: {}", id);
+
+        // Check for validation errors
+        if (bindingResult.hasErrors()) {
+            String errorMessage = ResponseUtil.getErrorMessage(bindingResult);
+            logger.warn("Validation failed: {}", errorMessage);
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
+        }
+
+        if (ifMatch != null) {
+            patch.setVersion(checkIfMatch(id, ifMatch));
+        }
+        UserModel patchedUser = userService.patchUser(id, patch);
+        if (patchedUser == null) {
+            logger.warn("User not found with ID: {}", id);
+            throw new UserNotFoundException("User not found with id " + id);
+        }
+
+        logger.info("User patched successfully with ID: {}", id);
+        return ResponseUtil.withETag(ResponseUtil.createResponse(HttpStatus.OK, "User updated successfully", 0, patchedUser), ETagUtil.forUser(patchedUser));
+    }
+
+    /**
+     * Updates many users in one transaction. Each entry carries its {@code id} and the full user, like PUT;
+     * the response lists an outcome per entry and {@code recordCount} is the number updated.
+     */
+    @PostMapping("/bulk-update")
+    public ResponseEntity<ApiResponse<List<BulkItemResult>>> bulkUpdateUsers(@RequestBody List<UserModel> users) {
+        logger.info("Bulk updating {} users", users.size());
+
+        if (users.isEmpty() || users.size() > MAX_BULK_ITEMS || users.contains(null)) {
+            String errorMessage = "Between 1 and " + MAX_BULK_ITEMS + " users are required.";
+            logger.warn("Bulk update failed: {}", errorMessage);
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
+        }
+
+        List<BulkItemResult> results = userBulkService.updateUsers(users);
+        int updated = (int) results.stream().filter(BulkItemResult::isApplied).count();
+        return ResponseUtil.createResponse(HttpStatus.OK, updated + " of " + users.size() + " users updated.", updated, results);
+    }
+
+    /**
+     * Deletes many users by ID in one transaction; the response lists an outcome per id and {@code recordCount}
+     * is the number deleted.
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<ApiResponse<List<BulkItemResult>>> bulkDeleteUsers(@RequestBody List<Long> ids) {
+        logger.info("Bulk deleting {} users", ids.size());
+
+        if (ids.isEmpty() || ids.size() > MAX_BULK_ITEMS || ids.contains(null)) {
+            String errorMessage = "Between 1 and " + MAX_BULK_ITEMS + " non-null ids are required.";
+            logger.warn("Bulk delete failed: {}", errorMessage);
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null);
+        }
+
+        List<BulkItemResult> results = userBulkService.deleteUsers(ids);
+        int deleted = (int) results.stream().filter(BulkItemResult::isApplied).count();
+        return ResponseUtil.createResponse(HttpStatus.OK, deleted + " of " + results.size() + " users deleted.", deleted, results);
+    }
+
+    /**
+     * Deletes a user by ID. With {@code If-Match}, only the version that ETag names is deleted.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserModel>> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<UserModel>> deleteUser(@PathVariable Long id,
+                                                             @RequestHeader(name = "If-Match", required = false) String ifMatch) {
         logger.info("Deleting user with ID: {}", id);
 
         UserModel userModel = userService.getUserById(id);
@@ -119,8 +441,30 @@ public class UserController {
             throw new UserNotFoundException("User not found with id " + id);
         }
 
-        userService.deleteUser(id);
+        if (ifMatch != null) {
+            if (!ETagUtil.matches(ifMatch, ETagUtil.forUser(userModel))) {
+                throw new PreconditionFailedException("User with id " + id + " does not match If-Match " + ifMatch);
+            }
+            userService.deleteUser(id, userModel.getVersion());
+        } else {
+            userService.deleteUser(id);
+        }
         logger.info("User with ID: {} has been deleted successfully.", id);
         return ResponseUtil.createResponse(HttpStatus.OK, "User with ID " + id + " has been deleted successfully.", 0, userModel);
     }
+
+    // Checks If-Match against the current (usually cached) user and returns its version, which the write then
+    // holds the database to, so a change that lands between this check and the commit still fails
+    private Long checkIfMatch(Long id, String ifMatch) {
+        UserModel current = userService.getUserById(id);
+        if (current == null) {
+            logger.warn("User not found with ID: {}", id);
+            throw new UserNotFoundException("User not found with id " + id);
+        }
+        if (!ETagUtil.matches(ifMatch, ETagUtil.forUser(current))) {
+            logger.warn("Precondition failed for user with ID: {} - If-Match: {}", id, ifMatch);
+            throw new PreconditionFailedException("User with id " + id + " does not match If-Match " + ifMatch);
+        }
+        return current.getVersion();
+    }
 }
@@ -0,0 +1,7 @@
+package com.tvm.usermanagement.exception;
+
+public class ChangeHistoryExpiredException extends RuntimeException {
+    public ChangeHistoryExpiredException(String message) {
+        super(message);
+    }
+}
@@ -2,6 +2,8 @@ package com.tvm.usermanagement.exception;
 
 import com.tvm.usermanagement.common.ApiResponse;
 import com.tvm.usermanagement.util.ResponseUtil;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -18,4 +20,30 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ApiResponse<Object>> handleUserNotFoundException(UserNotFoundException ex) {
         return ResponseUtil.createResponse(HttpStatus.NOT_FOUND, ex.getMessage(), 0, null);
     }
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiResponse<Object>> handlePreconditionFailedException(PreconditionFailedException ex) {
+        return ResponseUtil.createResponse(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), 0, null);
+    }
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiResponse<Object>> handleInvalidCursorException(InvalidCursorException ex) {
+        return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), 0, null);
+    }
+    @ExceptionHandler(ChangeHistoryExpiredException.class)
+    public ResponseEntity<ApiResponse<Object>> handleChangeHistoryExpiredException(ChangeHistoryExpiredException ex) {
+        return ResponseUtil.createResponse(HttpStatus.GONE, ex.getMessage(), 0, null);
+    }
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiResponse<Object>> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        // Races that slip past checkUserExists end up here when the unique constraints reject the write
+        UserAlreadyExistsException duplicate = UserAlreadyExistsException.fromConstraintViolation(ex);
+        if (duplicate != null) {
+            return handleUserAlreadyExistsException(duplicate);
+        }
+        return ResponseUtil.createResponse(HttpStatus.CONFLICT, "Request conflicts with existing data.", 0, null);
+    }
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Object>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        // The user changed since the client (or this request) read it
+        return ResponseUtil.createResponse(HttpStatus.CONFLICT, "User was modified by another request; reload it and retry.", 0, null);
+    }
 }
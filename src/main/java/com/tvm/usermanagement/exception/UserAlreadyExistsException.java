@@ -1,6 +1,11 @@
 package com.tvm.usermanagement.exception;
 
+import org.springframework.dao.DataIntegrityViolationException;
+
 public class UserAlreadyExistsException extends RuntimeException {
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
     private final String field; // Could be "email" or "username"
 
     public UserAlreadyExistsException(String field, String message) {
@@ -11,4 +16,23 @@ public class UserAlreadyExistsException extends RuntimeException {
     public String getField() {
         return field;
     }
+
+    /**
+     * Maps a violation of the users unique constraints to the field it concerns, or returns null for any other violation.
+     */
+    public static UserAlreadyExistsException fromConstraintViolation(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message == null) {
+                continue;
+            }
+            if (message.contains(EMAIL_CONSTRAINT)) {
+                return new UserAlreadyExistsException("email", "User with this email already exists.");
+            }
+            if (message.contains(USERNAME_CONSTRAINT)) {
+                return new UserAlreadyExistsException("username", "User with this username already exists.");
+            }
+        }
+        return null;
+    }
 }
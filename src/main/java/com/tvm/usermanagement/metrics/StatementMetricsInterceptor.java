@@ -0,0 +1,61 @@
+package com.tvm.usermanagement.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many JDBC statements each request runs, per endpoint, and flags requests above
+ * {@code user.metrics.n-plus-one-threshold} as likely N+1 query patterns.
+ */
+@Component
+public class StatementMetricsInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementMetricsInterceptor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user.metrics.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCountingDataSource.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int statements = StatementCountingDataSource.stop();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("http.server.requests.statements")
+                .description("JDBC statements executed per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements);
+
+        if (statements > nPlusOneThreshold) {
+            Counter.builder("http.server.requests.n_plus_one")
+                    .description("Requests that ran more JDBC statements than the N+1 threshold")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            logger.warn("Possible N+1 query pattern: {} {} ran {} statements", request.getMethod(), uri, statements);
+        }
+    }
+}
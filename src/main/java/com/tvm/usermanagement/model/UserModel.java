@@ -4,16 +4,36 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotEmpty;
+import org.hibernate.annotations.DynamicUpdate;
 
+// UPDATE statements list only the columns that actually changed
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_users_email", columnNames = "email"),
+        @UniqueConstraint(name = "uk_users_username", columnNames = "username")
+}, indexes = {
+        // Back every sortable field of UserSortField, in either direction (V6)
+        @Index(name = "idx_users_username_id", columnList = "username, id"),
+        @Index(name = "idx_users_name_id", columnList = "name, id"),
+        @Index(name = "idx_users_email_id", columnList = "email, id")
+})
 public class UserModel {
 
+    public static final String ID_SEQUENCE = "users_seq";
+    // Each nextval reserves this many ids, so Hibernate can batch inserts without a round trip per row
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)  // Specify generation strategy
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotEmpty(message = "Username is required")
@@ -26,6 +46,10 @@ public class UserModel {
     @NotEmpty(message = "Email is required")
     private String email;
 
+    // Optimistic lock: every UPDATE checks and bumps it, so concurrent edits fail instead of overwriting each other
+    @Version
+    private Long version;
+
     // Default constructor
     public UserModel() {
     }
@@ -69,4 +93,12 @@ public class UserModel {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,266 @@
+package com.tvm.usermanagement.reactive;
+
+import com.tvm.usermanagement.common.ApiResponse;
+import com.tvm.usermanagement.common.BatchResult;
+import com.tvm.usermanagement.common.ImportRowResult;
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.exception.UserNotFoundException;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.util.CsvUtil;
+import com.tvm.usermanagement.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * WebFlux version of UserController: same paths, parameters and ApiResponse envelope, but no request ever
+ * holds a thread while it waits for the database.
+ */
+@RestController
+@Profile(ReactiveUserManagementApplication.PROFILE)
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/users")
+public class ReactiveUserController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserController.class);
+    private static final int MAX_BATCH_IDS = 1000;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private ReactiveUserService userService;
+
+    /**
+     * Creates a new user.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<ApiResponse<UserModel>>> createUser(@RequestBody UserModel userModel) {
+        logger.info("Creating a new user with username: {}", userModel.getUsername());
+
+        String errorMessage = userService.validate(userModel);
+        if (errorMessage != null) {
+            logger.warn("User creation failed: {}", errorMessage);
+            return Mono.just(ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null));
+        }
+
+        return userService.checkUserExists(userModel, null)
+                .then(Mono.defer(() -> userService.createUser(userModel)))
+                .map(createdUser -> {
+                    logger.info("User created successfully with ID: {}", createdUser.getId());
+                    return ResponseUtil.createResponse(HttpStatus.CREATED, "User created successfully", 0, createdUser);
+                });
+    }
+
+    /**
+     * Imports users in bulk from an NDJSON request body, streaming the per-row report back as NDJSON.
+     * The body is read with backpressure, so rows are only pulled off the socket as fast as they are inserted.
+     */
+    @PostMapping(value = "/import", consumes = NDJSON, produces = NDJSON)
+    public Flux<ImportRowResult> importUsers(@RequestBody Flux<UserModel> users) {
+        logger.info("Importing users in bulk - format: ndjson");
+        return userService.importUsers(users);
+    }
+
+    /**
+     * Exports every user as NDJSON (default) or CSV, streamed from the database as the client reads it.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Flux<?>> exportUsers(@RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        logger.info("Exporting all users - format: {}", format);
+
+        if ("csv".equalsIgnoreCase(format)) {
+            Flux<String> rows = userService.exportUsers()
+                    .map(user -> user.getId() + "," + CsvUtil.escape(user.getUsername()) + "," + CsvUtil.escape(user.getName()) + "," + CsvUtil.escape(user.getEmail()) + "\n");
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .header("Content-Disposition", "attachment; filename=users.csv")
+                    .body(Flux.concat(Flux.just("id,username,name,email\n"), rows));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header("Content-Disposition", "attachment; filename=users.ndjson")
+                .body(userService.exportUsers());
+    }
+
+    /**
+     * Retrieves all users with pagination and sorting by id, username, name or email ({@code sortBy}),
+     * {@code sortDir=desc} (default) or {@code asc}.
+     * Passing {@code mode=cursor} or a {@code cursor} switches to keyset pagination, where each page
+     * carries the {@code nextCursor} to send back for the following one.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<ApiResponse<List<UserModel>>>> getAllUsers(
+            @RequestParam(name = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "pageSize", defaultValue = "10") int pageSize,
+            @RequestParam(name = "sortBy", defaultValue = "id") String sortBy,
+            @RequestParam(name = "sortDir", defaultValue = UserSort.DESC) String sortDir,
+            @RequestParam(name = "mode", defaultValue = "offset") String mode,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        UserSort sort;
+        try {
+            sort = UserSort.of(sortBy, sortDir);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Retrieving all users failed: {}", e.getMessage());
+            return Mono.just(ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, e.getMessage(), 0, null));
+        }
+        if (pageSize < 1 || offset < 0) {
+            String errorMessage = "A pageSize of at least 1 and a non-negative offset are required.";
+            logger.warn("Retrieving all users failed: {}", errorMessage);
+            return Mono.just(ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null));
+        }
+
+        if ("cursor".equals(mode) || cursor != null) {
+            logger.info("Retrieving all users with keyset pagination - cursor: {}, pageSize: {}, sort: {}", cursor, pageSize, sort);
+            return Mono.zip(userService.getTotalUsersCount(), userService.getUsersByCursor(cursor, pageSize, sort))
+                    .map(result -> ResponseUtil.createResponse(HttpStatus.OK, "All users retrieved successfully.",
+                            result.getT1().intValue(), result.getT2().getContent(), result.getT2().getNextCursor()));
+        }
+
+        logger.info("Retrieving all users with pagination - offset: {}, pageSize: {}, sort: {}", offset, pageSize, sort);
+        return Mono.zip(userService.getTotalUsersCount(), userService.getUsersByPagination(offset, pageSize, sort))
+                .map(result -> ResponseUtil.createResponse(HttpStatus.OK, "All users retrieved successfully.",
+                        result.getT1().intValue(), result.getT2()));
+    }
+
+    /**
+     * Streams all users after {@code cursor} in {@code sortBy}/{@code sortDir} order as NDJSON, without a page limit, when
+     * the client asks for {@code Accept: application/x-ndjson}. The query only advances as fast as the client reads.
+     */
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<?> streamAllUsers(
+            @RequestParam(name = "sortBy", defaultValue = "id") String sortBy,
+            @RequestParam(name = "sortDir", defaultValue = UserSort.DESC) String sortDir,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        logger.info("Streaming all users - cursor: {}, sortBy: {}, sortDir: {}", cursor, sortBy, sortDir);
+
+        // Validated before the stream starts, so a bad sort is a 400 rather than an error mid-response
+        UserSort sort;
+        try {
+            sort = UserSort.of(sortBy, sortDir);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Streaming all users failed: {}", e.getMessage());
+            return ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, e.getMessage(), 0, null);
+        }
+        return ResponseEntity.ok(userService.streamUsers(cursor, sort));
+    }
+
+    /**
+     * Searches users by username, name and/or email, e.g. {@code GET /api/users/search?q=ann&field=email&mode=prefix}.
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<ApiResponse<List<UserModel>>>> searchUsers(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "field", defaultValue = "any") String field,
+            @RequestParam(name = "mode", defaultValue = "substring") String mode,
+            @RequestParam(name = "pageSize", defaultValue = "20") int pageSize,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        logger.info("Searching users - q: {}, field: {}, mode: {}, pageSize: {}, cursor: {}", query, field, mode, pageSize, cursor);
+
+        UserSearchField searchField;
+        try {
+            searchField = UserSearchField.fromParam(field);
+        } catch (IllegalArgumentException e) {
+            logger.warn("User search failed: {}", e.getMessage());
+            return Mono.just(ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, e.getMessage(), 0, null));
+        }
+        if (query.isBlank() || pageSize < 1 || pageSize > MAX_SEARCH_PAGE_SIZE
+                || !("substring".equals(mode) || "prefix".equals(mode))) {
+            String errorMessage = "A non-blank q, mode=substring|prefix and a pageSize between 1 and " + MAX_SEARCH_PAGE_SIZE + " are required.";
+            logger.warn("User search failed: {}", errorMessage);
+            return Mono.just(ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null));
+        }
+
+        return userService.searchUsers(query.trim(), searchField, "prefix".equals(mode), cursor, pageSize)
+                .map(results -> ResponseUtil.createResponse(HttpStatus.OK, "Users retrieved successfully.",
+                        results.getContent().size(), results.getContent(), results.getNextCursor()));
+    }
+
+    /**
+     * Retrieves a user by ID.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<UserModel>>> getUserById(@PathVariable Long id) {
+        logger.info("Retrieving user with ID: {}", id);
+        return userService.getUserById(id)
+                .switchIfEmpty(notFound(id))
+                .map(user -> ResponseUtil.createResponse(HttpStatus.OK, "User retrieved successfully.", 0, user));
+    }
+
+    /**
+     * Retrieves several users by ID in one request, e.g. {@code GET /api/users?ids=1,2,3}.
+     */
+    @GetMapping(params = "ids")
+    public Mono<ResponseEntity<ApiResponse<BatchResult<UserModel>>>> getUsersByIds(@RequestParam(name = "ids") List<Long> ids) {
+        return batchGetUsers(ids);
+    }
+
+    /**
+     * Same as {@code GET /api/users?ids=...}, for id lists too long for a query string.
+     */
+    @PostMapping("/batch-get")
+    public Mono<ResponseEntity<ApiResponse<BatchResult<UserModel>>>> batchGetUsers(@RequestBody List<Long> ids) {
+        logger.info("Retrieving {} users by ID", ids.size());
+
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS || ids.contains(null)) {
+            String errorMessage = "Between 1 and " + MAX_BATCH_IDS + " non-null ids are required.";
+            logger.warn("Batch retrieval failed: {}", errorMessage);
+            return Mono.just(ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null));
+        }
+
+        return userService.getUsersByIds(ids)
+                .map(result -> ResponseUtil.createResponse(HttpStatus.OK, "Users retrieved successfully.", result.getItems().size(), result));
+    }
+
+    /**
+     * Updates an existing user.
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<UserModel>>> updateUser(@PathVariable Long id, @RequestBody UserModel userModel) {
+        logger.info("Updating user with ID: {}", id);
+
+        String errorMessage = userService.validate(userModel);
+        if (errorMessage != null) {
+            logger.warn("Validation failed: {}", errorMessage);
+            return Mono.just(ResponseUtil.createResponse(HttpStatus.BAD_REQUEST, errorMessage, 0, null));
+        }
+
+        return userService.checkUserExists(userModel, id)
+                .then(Mono.defer(() -> userService.updateUser(id, userModel)))
+                .switchIfEmpty(notFound(id))
+                .map(updatedUser -> {
+                    logger.info("User updated successfully with ID: {}", id);
+                    return ResponseUtil.createResponse(HttpStatus.OK, "User updated successfully", 0, updatedUser);
+                });
+    }
+
+    /**
+     * Deletes a user by ID.
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<UserModel>>> deleteUser(@PathVariable Long id) {
+        logger.info("Deleting user with ID: {}", id);
+        return userService.deleteUser(id)
+                .switchIfEmpty(notFound(id))
+                .map(user -> {
+                    logger.info("User with ID: {} has been deleted successfully.", id);
+                    return ResponseUtil.createResponse(HttpStatus.OK, "User with ID " + id + " has been deleted successfully.", 0, user);
+                });
+    }
+
+    private static Mono<UserModel> notFound(Long id) {
+        return Mono.defer(() -> {
+            logger.warn("User not found with ID: {}", id);
+            return Mono.error(new UserNotFoundException("User not found with id " + id));
+        });
+    }
+}
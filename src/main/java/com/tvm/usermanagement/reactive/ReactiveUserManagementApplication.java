@@ -0,0 +1,27 @@
+package com.tvm.usermanagement.reactive;
+
+import com.tvm.usermanagement.exception.GlobalExceptionHandler;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Non-blocking variant of the service: the same /api/users contract served by WebFlux over R2DBC.
+ * Only scans this package, so none of the servlet/JPA beans are created; the profile keeps these beans
+ * out of the regular application, whose component scan also covers this package.
+ */
+@SpringBootApplication
+@Profile(ReactiveUserManagementApplication.PROFILE)
+@Import(GlobalExceptionHandler.class)
+public class ReactiveUserManagementApplication {
+
+	public static final String PROFILE = "reactive";
+
+	public static void main(String[] args) {
+		SpringApplication application = new SpringApplication(ReactiveUserManagementApplication.class);
+		application.setAdditionalProfiles(PROFILE);
+		application.run(args);
+	}
+
+}
@@ -0,0 +1,224 @@
+package com.tvm.usermanagement.reactive;
+
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.common.UserSortField;
+import com.tvm.usermanagement.model.UserModel;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * R2DBC access to the users table, mirroring the queries of UserRepository and UserRepositoryCustomImpl.
+ */
+@Repository
+@Profile(ReactiveUserManagementApplication.PROFILE)
+public class ReactiveUserRepository {
+
+    // Searchable fields, mapped to their column names
+    private static final Map<String, String> SEARCH_COLUMNS = Map.of(
+            "username", "username",
+            "name", "name",
+            "email", "email");
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    // Rows Postgres sends per round trip for unbounded streams; more are only requested as the subscriber asks for them
+    @Value("${user.reactive.fetch-size:500}")
+    private int fetchSize;
+
+    public Mono<UserModel> findById(Long id) {
+        return databaseClient.sql("SELECT * FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Flux<UserModel> findAllById(Collection<Long> ids) {
+        return databaseClient.sql("SELECT * FROM users WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveUserRepository::toUser)
+                .all();
+    }
+
+    public Flux<UserModel> findByEmailOrUsername(String email, String username) {
+        return databaseClient.sql("SELECT * FROM users WHERE email = :email OR username = :username")
+                .bind("email", email)
+                .bind("username", username)
+                .map(ReactiveUserRepository::toUser)
+                .all();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.sql("SELECT count(*) FROM users")
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+    }
+
+    /**
+     * Offset page in {@code sort} order, like {@code findAllBy(PageRequest)} on the JPA side.
+     */
+    public Flux<UserModel> findPage(UserSort sort, long offset, int limit) {
+        return databaseClient.sql("SELECT * FROM users" + orderBy(sort) + " LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveUserRepository::toUser)
+                .all();
+    }
+
+    /**
+     * Keyset read after ({@code lastSortKey}, {@code lastId}) in {@code sort} order. A null {@code limit} streams
+     * the rest of the table in fetch-size batches, pulled only as fast as the subscriber consumes them.
+     */
+    public Flux<UserModel> findAfter(UserSort sort, String lastSortKey, Long lastId, Integer limit) {
+        String column = sort.getField().getColumn();
+        boolean byId = sort.getField() == UserSortField.ID;
+        String after = sort.isAscending() ? " > " : " < ";
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM users");
+        if (lastId != null) {
+            sql.append(byId ? " WHERE id" + after + ":lastId" : " WHERE (" + column + ", id)" + after + "(:lastSortKey, :lastId)");
+        }
+        sql.append(orderBy(sort));
+        if (limit != null) {
+            sql.append(" LIMIT :limit");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        if (lastId != null) {
+            spec = spec.bind("lastId", lastId);
+            if (!byId) {
+                spec = spec.bind("lastSortKey", lastSortKey);
+            }
+        }
+        if (limit != null) {
+            spec = spec.bind("limit", limit);
+        } else {
+            spec = spec.filter(statement -> statement.fetchSize(fetchSize));
+        }
+        return spec.map(ReactiveUserRepository::toUser).all();
+    }
+
+    public Flux<UserModel> search(List<String> columns, String pattern, Long lastId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM users WHERE (");
+        for (int i = 0; i < columns.size(); i++) {
+            String column = SEARCH_COLUMNS.get(columns.get(i));
+            if (column == null) {
+                throw new IllegalArgumentException("Unsupported search field: " + columns.get(i));
+            }
+            // lower(column) matches the expression of the trigram indexes
+            sql.append(i == 0 ? "" : " OR ").append("lower(").append(column).append(") LIKE :pattern ESCAPE '\\'");
+        }
+        sql.append(")");
+        if (lastId != null) {
+            sql.append(" AND id < :lastId");
+        }
+        sql.append(" ORDER BY id DESC LIMIT :limit");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("pattern", pattern).bind("limit", limit);
+        if (lastId != null) {
+            spec = spec.bind("lastId", lastId);
+        }
+        return spec.map(ReactiveUserRepository::toUser).all();
+    }
+
+    /**
+     * Inserts the user and returns the stored row, with the version and defaults the database assigned.
+     */
+    public Mono<UserModel> insert(UserModel user) {
+        return databaseClient.sql("INSERT INTO users (id, username, name, email) VALUES (:id, :username, :name, :email) RETURNING *")
+                .bind("id", user.getId())
+                .bind("username", user.getUsername())
+                .bind("name", user.getName())
+                .bind("email", user.getEmail())
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    /**
+     * Updates the user and returns the stored row, or completes empty if the id does not exist.
+     */
+    public Mono<UserModel> update(Long id, UserModel user) {
+        return databaseClient.sql("UPDATE users SET username = :username, name = :name, email = :email, version = version + 1 WHERE id = :id RETURNING *")
+                .bind("id", id)
+                .bind("username", user.getUsername())
+                .bind("name", user.getName())
+                .bind("email", user.getEmail())
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    /**
+     * Deletes the user and returns the deleted row, or completes empty if no row was deleted. Of concurrent deletes
+     * of the same user only the one that removed the row gets it back.
+     */
+    public Mono<UserModel> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM users WHERE id = :id RETURNING *")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    /**
+     * Records a create or update of the user in the {@code user_changes} outbox, with its current row as the payload.
+     * Must run in the transaction that made the change, after the write, so the row lock orders the events.
+     */
+    public Mono<Void> recordUpsert(String type, Long id) {
+        return databaseClient.sql("INSERT INTO user_changes (user_id, change_type, payload)"
+                        + " SELECT id, :type, jsonb_build_object('id', id, 'username', username, 'name', name, 'email', email, 'version', version)"
+                        + " FROM users WHERE id = :id")
+                .bind("type", type)
+                .bind("id", id)
+                .then();
+    }
+
+    public Mono<Void> recordDelete(Long id) {
+        return databaseClient.sql("INSERT INTO user_changes (user_id, change_type) VALUES (:id, :type)")
+                .bind("id", id)
+                .bind("type", UserChange.DELETED)
+                .then();
+    }
+
+    /**
+     * Reserves a block of ids from the pooled sequence; the returned value is the top of the block.
+     */
+    public Mono<Long> nextIdBlock() {
+        return databaseClient.sql("SELECT nextval('" + UserModel.ID_SEQUENCE + "')")
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<Void> notify(String channel, String payload) {
+        return databaseClient.sql("SELECT pg_notify(:channel, :payload)")
+                .bind("channel", channel)
+                .bind("payload", payload)
+                .then();
+    }
+
+    // Same shape as the JPA side, so both read the (column, id) indexes in either direction
+    private static String orderBy(UserSort sort) {
+        String direction = sort.isAscending() ? " ASC" : " DESC";
+        if (sort.getField() == UserSortField.ID) {
+            return " ORDER BY id" + direction;
+        }
+        return " ORDER BY " + sort.getField().getColumn() + direction + ", id" + direction;
+    }
+
+    private static UserModel toUser(Row row, RowMetadata metadata) {
+        UserModel user = new UserModel(row.get("username", String.class), row.get("name", String.class), row.get("email", String.class));
+        user.setId(row.get("id", Long.class));
+        user.setVersion(row.get("version", Long.class));
+        return user;
+    }
+}
@@ -0,0 +1,321 @@
+package com.tvm.usermanagement.reactive;
+
+import com.tvm.usermanagement.cache.PostgresCacheInvalidationBus;
+import com.tvm.usermanagement.common.BatchResult;
+import com.tvm.usermanagement.common.CursorPage;
+import com.tvm.usermanagement.common.ImportRowResult;
+import com.tvm.usermanagement.common.PageCursor;
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.common.UserSortField;
+import com.tvm.usermanagement.exception.InvalidCursorException;
+import com.tvm.usermanagement.exception.UserAlreadyExistsException;
+import com.tvm.usermanagement.model.UserModel;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of UserService. Nothing here blocks: every database call is an R2DBC publisher.
+ * There is no local cache; writes still NOTIFY the cache invalidation channel so servlet nodes sharing
+ * the database evict what changed.
+ */
+@Service
+@Profile(ReactiveUserManagementApplication.PROFILE)
+public class ReactiveUserService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserService.class);
+    // Search cursors are bound to the query they were issued for
+    private static final String SEARCH_CURSOR_PREFIX = "search:";
+
+    // Lets servlet nodes tell these notifications apart from their own
+    private final String nodeId = "reactive-" + UUID.randomUUID();
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${user.cache.invalidation.enabled:false}")
+    private boolean publishInvalidations;
+
+    @Value("${user.count.reconcile-interval-ms:60000}")
+    private long countRefreshIntervalMs;
+
+    // Rows of an import inserted at the same time
+    @Value("${user.reactive.import-concurrency:8}")
+    private int importConcurrency;
+
+    private Mono<Long> totalUsers;
+
+    // Current block of pooled ids, handed out like Hibernate's pooled optimizer does
+    private long nextId = 1;
+    private long maxId = 0;
+
+    @PostConstruct
+    public void init() {
+        // COUNT(*) runs at most once per interval; the total in list responses may lag by that much
+        Duration refreshInterval = Duration.ofMillis(countRefreshIntervalMs);
+        totalUsers = userRepository.count().cache(count -> refreshInterval, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * Returns the first bean validation message for the user, or null if it is valid.
+     */
+    public String validate(UserModel user) {
+        Set<ConstraintViolation<UserModel>> violations = validator.validate(user);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    /**
+     * Fails with UserAlreadyExistsException if another user than {@code ownId} (null when creating) holds the email or username.
+     */
+    public Mono<Void> checkUserExists(UserModel userModel, Long ownId) {
+        return userRepository.findByEmailOrUsername(userModel.getEmail(), userModel.getUsername())
+                .filter(existingUser -> !existingUser.getId().equals(ownId))
+                .collectList()
+                .flatMap(existingUsers -> {
+                    for (UserModel existingUser : existingUsers) {
+                        if (existingUser.getEmail().equals(userModel.getEmail())) {
+                            return Mono.error(new UserAlreadyExistsException("email", "User with email " + userModel.getEmail() + " already exists."));
+                        }
+                    }
+                    if (!existingUsers.isEmpty()) {
+                        return Mono.error(new UserAlreadyExistsException("username", "User with username " + userModel.getUsername() + " already exists."));
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<UserModel> createUser(UserModel user) {
+        logger.info("Creating a new user with username: {}", user.getUsername());
+        return nextId()
+                .flatMap(id -> {
+                    user.setId(id);
+                    return userRepository.insert(user)
+                            .flatMap(created -> userRepository.recordUpsert(UserChange.CREATED, id)
+                                    .then(publishChanged(id.toString()))
+                                    .thenReturn(created));
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<Long> getTotalUsersCount() {
+        return totalUsers;
+    }
+
+    public Mono<List<UserModel>> getUsersByPagination(int offset, int pageSize, UserSort sort) {
+        logger.info("Fetching users with pagination - offset: {}, pageSize: {}, sort: {}", offset, pageSize, sort);
+        return userRepository.findPage(sort, (long) offset * pageSize, pageSize).collectList();
+    }
+
+    public Mono<CursorPage<UserModel>> getUsersByCursor(String cursor, int pageSize, UserSort sort) {
+        logger.info("Fetching users with keyset pagination - cursor: {}, pageSize: {}, sort: {}", cursor, pageSize, sort);
+        if (pageSize < 1) {
+            return Mono.error(new IllegalArgumentException("Page size must not be less than one"));
+        }
+        return Mono.defer(() -> {
+                    PageCursor pageCursor = decodeCursor(cursor, sort.getKey());
+                    return userRepository.findAfter(sort,
+                            pageCursor != null ? pageCursor.getLastSortKey() : null,
+                            pageCursor != null ? pageCursor.getLastId() : null,
+                            pageSize + 1).collectList();
+                })
+                .map(users -> toCursorPage(users, pageSize, last -> new PageCursor(sort.getKey(), last.getId(), sort.getField().keyOf(last))));
+    }
+
+    /**
+     * Streams every user after the cursor in {@code sort} order, with no page limit. Rows are read
+     * from Postgres as the client consumes them, so a slow reader holds back the query instead of filling memory.
+     */
+    public Flux<UserModel> streamUsers(String cursor, UserSort sort) {
+        logger.info("Streaming users - cursor: {}, sort: {}", cursor, sort);
+        return Flux.defer(() -> {
+            PageCursor pageCursor = decodeCursor(cursor, sort.getKey());
+            return userRepository.findAfter(sort,
+                    pageCursor != null ? pageCursor.getLastSortKey() : null,
+                    pageCursor != null ? pageCursor.getLastId() : null,
+                    null);
+        });
+    }
+
+    public Mono<CursorPage<UserModel>> searchUsers(String query, UserSearchField field, boolean prefix, String cursor, int pageSize) {
+        logger.info("Searching users - query: {}, field: {}, prefix: {}, cursor: {}, pageSize: {}", query, field, prefix, cursor, pageSize);
+        String sortBy = SEARCH_CURSOR_PREFIX + field.name() + ":" + prefix + ":" + query;
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        String escaped = lowerQuery.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String pattern = prefix ? escaped + "%" : "%" + escaped + "%";
+
+        return Mono.defer(() -> {
+                    PageCursor pageCursor = decodeCursor(cursor, sortBy);
+                    Long lastId = pageCursor != null ? pageCursor.getLastId() : null;
+                    return userRepository.search(field.getColumns(), pattern, lastId, pageSize + 1).collectList();
+                })
+                .map(users -> toCursorPage(users, pageSize, last -> new PageCursor(sortBy, last.getId(), String.valueOf(last.getId()))));
+    }
+
+    public Mono<UserModel> getUserById(Long id) {
+        logger.info("Fetching user by ID: {}", id);
+        return userRepository.findById(id);
+    }
+
+    /**
+     * Loads the users with one IN query and returns them in request order, listing unknown ids as missing.
+     */
+    public Mono<BatchResult<UserModel>> getUsersByIds(List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        logger.info("Fetching users by IDs - requested: {}", distinctIds.size());
+        return userRepository.findAllById(distinctIds)
+                .collectMap(UserModel::getId)
+                .map(found -> {
+                    List<UserModel> items = new ArrayList<>(distinctIds.size());
+                    List<Long> missingIds = new ArrayList<>();
+                    for (Long id : distinctIds) {
+                        UserModel user = found.get(id);
+                        if (user != null) {
+                            items.add(user);
+                        } else {
+                            missingIds.add(id);
+                        }
+                    }
+                    return new BatchResult<>(items, missingIds);
+                });
+    }
+
+    /**
+     * Updates the user, completing empty if it does not exist.
+     */
+    public Mono<UserModel> updateUser(Long id, UserModel user) {
+        logger.info("Updating user with ID: {}", id);
+        return userRepository.update(id, user)
+                .flatMap(updated -> userRepository.recordUpsert(UserChange.UPDATED, id)
+                        .then(publishChanged(id.toString()))
+                        .thenReturn(updated))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Deletes the user and returns it, completing empty if it does not exist.
+     */
+    public Mono<UserModel> deleteUser(Long id) {
+        logger.info("Deleting user with ID: {}", id);
+        // Only the delete that removed the row records the change, so the feed carries one DELETED event per user
+        return userRepository.deleteById(id)
+                .flatMap(user -> userRepository.recordDelete(id)
+                        .then(publishChanged(id.toString()))
+                        .thenReturn(user))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Imports users as they arrive, a bounded number of rows at a time, and emits one result per row in input order.
+     * Only as many rows are read from the request as there is room for, so the body is never buffered whole.
+     */
+    public Flux<ImportRowResult> importUsers(Flux<UserModel> users) {
+        logger.info("Importing users in bulk");
+        return users.index()
+                .flatMapSequential(row -> importRow(row.getT1() + 1, row.getT2()), importConcurrency)
+                // Invalidate listings once for the whole import rather than once per row
+                .concatWith(Mono.defer(() -> publishChanged(PostgresCacheInvalidationBus.ALL_LISTINGS)).then(Mono.empty()));
+    }
+
+    private Mono<ImportRowResult> importRow(long rowNumber, UserModel user) {
+        Set<ConstraintViolation<UserModel>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<UserModel> violation = violations.iterator().next();
+            return Mono.just(ImportRowResult.failed(rowNumber, violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        return nextId()
+                .flatMap(id -> {
+                    user.setId(id);
+                    return userRepository.insert(user)
+                            .flatMap(created -> userRepository.recordUpsert(UserChange.CREATED, id).thenReturn(created));
+                })
+                .as(transactionalOperator::transactional)
+                .map(created -> ImportRowResult.created(rowNumber, created.getId()))
+                .onErrorResume(DataIntegrityViolationException.class, e -> {
+                    UserAlreadyExistsException duplicate = UserAlreadyExistsException.fromConstraintViolation(e);
+                    return Mono.just(duplicate != null
+                            ? ImportRowResult.failed(rowNumber, duplicate.getField(), duplicate.getMessage())
+                            : ImportRowResult.failed(rowNumber, null, "Row violates a database constraint."));
+                });
+    }
+
+    /**
+     * Streams every user in id order, pulled from the database only as fast as the response is written.
+     */
+    public Flux<UserModel> exportUsers() {
+        logger.info("Exporting all users");
+        return userRepository.findAfter(new UserSort(UserSortField.ID, false), null, null, null);
+    }
+
+    // Sends the NOTIFY inside the caller's transaction, so it is only delivered if the write commits
+    private Mono<Void> publishChanged(String key) {
+        if (!publishInvalidations) {
+            return Mono.empty();
+        }
+        return userRepository.notify(PostgresCacheInvalidationBus.CHANNEL, nodeId + ":" + key);
+    }
+
+    private Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            Long id = takeId();
+            return id != null ? Mono.just(id) : userRepository.nextIdBlock().map(this::startBlock);
+        });
+    }
+
+    private synchronized Long takeId() {
+        return nextId <= maxId ? nextId++ : null;
+    }
+
+    // Each nextval is the top of a block of ID_ALLOCATION_SIZE ids; a block replaced by a concurrent refill is skipped
+    private synchronized long startBlock(long hi) {
+        nextId = hi - UserModel.ID_ALLOCATION_SIZE + 1;
+        maxId = hi;
+        return nextId++;
+    }
+
+    private PageCursor decodeCursor(String cursor, String sortBy) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        if (!pageCursor.getSortBy().equals(sortBy)) {
+            throw new InvalidCursorException("Cursor was issued for a different query");
+        }
+        return pageCursor;
+    }
+
+    private CursorPage<UserModel> toCursorPage(List<UserModel> users, int pageSize, Function<UserModel, PageCursor> cursorOf) {
+        // One extra row was read to find out whether another page follows
+        if (users.size() <= pageSize) {
+            return new CursorPage<>(users, null);
+        }
+        List<UserModel> content = users.subList(0, pageSize);
+        return new CursorPage<>(List.copyOf(content), cursorOf.apply(content.get(pageSize - 1)).encode());
+    }
+}
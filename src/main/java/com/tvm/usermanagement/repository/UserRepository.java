@@ -2,10 +2,50 @@
 package com.tvm.usermanagement.repository;
 
 import com.tvm.usermanagement.model.UserModel;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
-public interface UserRepository extends JpaRepository<UserModel, Long> {
-    Optional<UserModel> findByEmailOrUsername(String email, String username);
+public interface UserRepository extends JpaRepository<UserModel, Long>, UserRepositoryCustom {
+
+    int EXPORT_FETCH_SIZE = 1000;
+
+    List<UserModel> findByEmailInOrUsernameIn(Collection<String> emails, Collection<String> usernames);
+
+    Slice<UserModel> findAllBy(Pageable pageable);
+
+    /**
+     * Deletes the user and returns the number of rows removed, 0 when it was already gone.
+     */
+    @Modifying
+    @Query("delete from UserModel u where u.id = :id")
+    int removeById(@Param("id") Long id);
+
+    /**
+     * Deletes the user only if it is still at {@code version}; returns the number of rows removed.
+     */
+    @Modifying
+    @Query("delete from UserModel u where u.id = :id and u.version = :version")
+    int removeByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    /**
+     * Forward-only, read-only cursor over every user in id order. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select u from UserModel u order by u.id")
+    Stream<UserModel> streamAllBy();
 }
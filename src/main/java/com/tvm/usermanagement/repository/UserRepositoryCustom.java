@@ -0,0 +1,40 @@
+package com.tvm.usermanagement.repository;
+
+import com.tvm.usermanagement.common.UserField;
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.model.UserModel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Reads up to {@code limit} users in {@code sort} order (sort field, then id), starting strictly after
+     * the given position. A null {@code lastId} reads from the top.
+     */
+    List<UserModel> findPageAfter(UserSort sort, Object lastSortKey, Long lastId, int limit);
+
+    /**
+     * Reads up to {@code limit} users, newest id first and below {@code lastId} when given, where any of
+     * {@code columns} matches the lower-cased LIKE {@code pattern} (escaped with backslash).
+     */
+    List<UserModel> search(List<String> columns, String pattern, Long lastId, int limit);
+
+    /**
+     * Selects only the given columns of up to {@code limit} users in {@code sort} order, skipping the first
+     * {@code offset}. Each row maps column names to values; no entities are loaded.
+     */
+    List<Map<String, Object>> findFieldsPage(Set<UserField> fields, UserSort sort, long offset, int limit);
+
+    /**
+     * Same as {@link #findPageAfter}, selecting only the given columns and the sort column as rows.
+     */
+    List<Map<String, Object>> findFieldsAfter(Set<UserField> fields, UserSort sort, Object lastSortKey, Long lastId, int limit);
+
+    /**
+     * Selects only the given columns of one user, or returns null when there is no such user.
+     */
+    Map<String, Object> findFieldsById(Set<UserField> fields, Long id);
+}
@@ -0,0 +1,152 @@
+package com.tvm.usermanagement.repository;
+
+import com.tvm.usermanagement.common.UserField;
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.common.UserSortField;
+import com.tvm.usermanagement.model.UserModel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    // Searchable fields, mapped to their column names
+    private static final Map<String, String> SEARCH_COLUMNS = Map.of(
+            "username", "username",
+            "name", "name",
+            "email", "email");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UserModel> findPageAfter(UserSort sort, Object lastSortKey, Long lastId, int limit) {
+        Query query = entityManager.createNativeQuery(keysetSql("*", sort, lastId != null), UserModel.class);
+        bindKeyset(query, sort, lastSortKey, lastId, limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsPage(Set<UserField> fields, UserSort sort, long offset, int limit) {
+        List<String> columns = columnsOf(fields);
+        Query query = entityManager.createNativeQuery("SELECT " + String.join(", ", columns) + " FROM users"
+                + orderBy(sort) + " OFFSET :offset LIMIT :limit", Tuple.class);
+        query.setParameter("offset", offset);
+        query.setParameter("limit", limit);
+        return toRows(query, columns);
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(Set<UserField> fields, UserSort sort, Object lastSortKey, Long lastId, int limit) {
+        String column = sort.getField().getColumn();
+        // The sort column is needed for the next cursor even when it was not asked for
+        List<String> columns = columnsOf(fields);
+        if (!columns.contains(column)) {
+            columns.add(column);
+        }
+        Query query = entityManager.createNativeQuery(keysetSql(String.join(", ", columns), sort, lastId != null), Tuple.class);
+        bindKeyset(query, sort, lastSortKey, lastId, limit);
+        return toRows(query, columns);
+    }
+
+    @Override
+    public Map<String, Object> findFieldsById(Set<UserField> fields, Long id) {
+        List<String> columns = columnsOf(fields);
+        Query query = entityManager.createNativeQuery("SELECT " + String.join(", ", columns) + " FROM users WHERE id = :id", Tuple.class);
+        query.setParameter("id", id);
+        List<Map<String, Object>> rows = toRows(query, columns);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UserModel> search(List<String> columns, String pattern, Long lastId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM users WHERE (");
+        for (int i = 0; i < columns.size(); i++) {
+            String column = SEARCH_COLUMNS.get(columns.get(i));
+            if (column == null) {
+                throw new IllegalArgumentException("Unsupported search field: " + columns.get(i));
+            }
+            // lower(column) matches the expression of the trigram indexes
+            sql.append(i == 0 ? "" : " OR ").append("lower(").append(column).append(") LIKE :pattern ESCAPE '\\'");
+        }
+        sql.append(")");
+        if (lastId != null) {
+            sql.append(" AND id < :lastId");
+        }
+        sql.append(" ORDER BY id DESC LIMIT :limit");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), UserModel.class);
+        query.setParameter("pattern", pattern);
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+        }
+        query.setParameter("limit", limit);
+        return query.getResultList();
+    }
+
+    // Sort field and id in the same direction, which a (field, id) index returns in order, forwards or backwards.
+    // Column names come from the UserSortField enum, never from the request; package-private so UserSortPlanTest can EXPLAIN it
+    static String orderBy(UserSort sort) {
+        String direction = sort.isAscending() ? " ASC" : " DESC";
+        return sort.getField() == UserSortField.ID
+                ? " ORDER BY id" + direction
+                : " ORDER BY " + sort.getField().getColumn() + direction + ", id" + direction;
+    }
+
+    static String keysetSql(String selectList, UserSort sort, boolean afterLast) {
+        String column = sort.getField().getColumn();
+        String comparison = sort.isAscending() ? " > " : " < ";
+        StringBuilder sql = new StringBuilder("SELECT ").append(selectList).append(" FROM users");
+        if (afterLast) {
+            // Row-value comparison lets Postgres seek straight into the (column, id) index
+            sql.append(sort.getField() == UserSortField.ID
+                    ? " WHERE id" + comparison + ":lastId"
+                    : " WHERE (" + column + ", id)" + comparison + "(:lastSortKey, :lastId)");
+        }
+        sql.append(orderBy(sort));
+        sql.append(" LIMIT :limit");
+        return sql.toString();
+    }
+
+    private static void bindKeyset(Query query, UserSort sort, Object lastSortKey, Long lastId, int limit) {
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+            if (sort.getField() != UserSortField.ID) {
+                query.setParameter("lastSortKey", lastSortKey);
+            }
+        }
+        query.setParameter("limit", limit);
+    }
+
+    // Column names come from the UserField enum, never from the request, so they are safe to inline
+    private static List<String> columnsOf(Set<UserField> fields) {
+        List<String> columns = new ArrayList<>(fields.size() + 1);
+        for (UserField field : fields) {
+            columns.add(field.getColumn());
+        }
+        return columns;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> toRows(Query query, List<String> columns) {
+        List<Tuple> tuples = query.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                row.put(columns.get(i), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,28 @@
+package com.tvm.usermanagement.service;
+
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Searches in Postgres, where the lower(...) LIKE predicates are served by the pg_trgm GIN indexes from V4.
+ */
+@Component
+@Profile("!small")
+public class DatabaseUserSearch implements UserSearch {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public List<UserModel> find(String query, UserSearchField field, boolean prefix, Long lastId, int limit) {
+        String escaped = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String pattern = prefix ? escaped + "%" : "%" + escaped + "%";
+        return userRepository.search(field.getColumns(), pattern, lastId, limit);
+    }
+}
@@ -0,0 +1,198 @@
+package com.tvm.usermanagement.service;
+
+import com.tvm.usermanagement.cache.UserCacheInvalidationEvent;
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * In-process trigram index for small deployments ({@code small} profile), so search needs no database round trip.
+ * Each trigram of a lower-cased field maps to the ids containing it; a query intersects the posting sets of its
+ * own trigrams and then verifies the candidates. Queries shorter than a trigram scan every user.
+ */
+@Component
+@Profile("small")
+public class InMemoryUserSearch implements UserSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryUserSearch.class);
+    private static final int GRAM = 3;
+
+    private final Map<Long, UserModel> users = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>(Collections.reverseOrder());
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Also called after other transactions commit, so never join theirs
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long count = transactionTemplate.execute(status -> {
+            long loaded = 0;
+            try (Stream<UserModel> stream = userRepository.streamAllBy()) {
+                Iterator<UserModel> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    put(iterator.next());
+                    if (++loaded % UserRepository.EXPORT_FETCH_SIZE == 0) {
+                        entityManager.clear();
+                    }
+                }
+            }
+            return loaded;
+        });
+        logger.info("Built in-memory user search index from {} users", count);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserCacheInvalidationEvent event) {
+        if (event.getUserIds() == null) {
+            build();
+            return;
+        }
+        event.getUserIds().forEach(this::remove);
+        transactionTemplate.executeWithoutResult(status -> userRepository.findAllById(event.getUserIds()).forEach(this::put));
+    }
+
+    @Override
+    public List<UserModel> find(String query, UserSearchField field, boolean prefix, Long lastId, int limit) {
+        // Short queries walk every id; longer ones only the ids holding all of their trigrams
+        NavigableSet<Long> candidates = query.length() >= GRAM ? candidateIds(query) : ids;
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        if (lastId != null) {
+            candidates = candidates.tailSet(lastId, false);
+        }
+
+        List<UserModel> matches = new ArrayList<>(limit);
+        for (Long id : candidates) {
+            UserModel user = users.get(id);
+            if (user != null && matches(user, query, field, prefix)) {
+                matches.add(user);
+                if (matches.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Ids whose fields contain every trigram of the query, newest first like ids
+    private NavigableSet<Long> candidateIds(String query) {
+        List<Set<Long>> sets = new ArrayList<>();
+        for (String gram : trigrams(query)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return Collections.emptyNavigableSet();
+            }
+            sets.add(posting);
+        }
+        sets.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        Set<Long> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.retainAll(sets.get(i));
+        }
+        // Only the intersection is sorted, which is at most as large as the rarest trigram's posting
+        NavigableSet<Long> sorted = new TreeSet<>(Collections.reverseOrder());
+        sorted.addAll(result);
+        return sorted;
+    }
+
+    private static boolean matches(UserModel user, String query, UserSearchField field, boolean prefix) {
+        for (String column : field.getColumns()) {
+            String value = normalize(valueOf(user, column));
+            if (prefix ? value.startsWith(query) : value.contains(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(UserModel user) {
+        UserModel copy = new UserModel(user.getUsername(), user.getName(), user.getEmail());
+        copy.setId(user.getId());
+        users.put(copy.getId(), copy);
+        for (String column : UserSearchField.ANY.getColumns()) {
+            for (String gram : trigrams(normalize(valueOf(copy, column)))) {
+                postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(copy.getId());
+            }
+        }
+        ids.add(copy.getId());
+    }
+
+    private void remove(Long id) {
+        ids.remove(id);
+        UserModel previous = users.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String column : UserSearchField.ANY.getColumns()) {
+            for (String gram : trigrams(normalize(valueOf(previous, column)))) {
+                Set<Long> posting = postings.get(gram);
+                if (posting != null) {
+                    posting.remove(id);
+                }
+            }
+        }
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String valueOf(UserModel user, String column) {
+        return switch (column) {
+            case "username" -> user.getUsername();
+            case "name" -> user.getName();
+            default -> user.getEmail();
+        };
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
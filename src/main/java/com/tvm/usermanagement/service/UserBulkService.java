@@ -0,0 +1,167 @@
+package com.tvm.usermanagement.service;
+
+import com.tvm.usermanagement.cache.UserCacheInvalidator;
+import com.tvm.usermanagement.common.BulkItemResult;
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies many updates or deletes in one transaction with set-based SQL, instead of loading and saving
+ * each entity. Caches are invalidated once, for the affected ids only, after the transaction commits.
+ */
+@Service
+public class UserBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserBulkService.class);
+    private static final String UPDATE_SQL = "UPDATE users SET username = ?, name = ?, email = ?, version = version + 1 WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM users WHERE id = ANY(?) RETURNING id";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Autowired
+    private UserCounter userCounter;
+
+    @Autowired
+    private UserUniquenessIndex userUniquenessIndex;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    /**
+     * Updates every valid, non-conflicting user with one JDBC batch and returns an outcome per entry, in request order.
+     * A constraint violation from a concurrent writer rolls the whole batch back.
+     */
+    @Transactional
+    public List<BulkItemResult> updateUsers(List<UserModel> users) {
+        logger.info("Bulk updating {} users", users.size());
+        BulkItemResult[] results = new BulkItemResult[users.size()];
+        Set<Long> seenIds = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenUsernames = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>(users.size());
+
+        for (int i = 0; i < users.size(); i++) {
+            UserModel user = users.get(i);
+            Set<ConstraintViolation<UserModel>> violations = validator.validate(user);
+            if (user.getId() == null) {
+                results[i] = BulkItemResult.failed(null, "id", "Id is required");
+            } else if (!violations.isEmpty()) {
+                ConstraintViolation<UserModel> violation = violations.iterator().next();
+                results[i] = BulkItemResult.failed(user.getId(), violation.getPropertyPath().toString(), violation.getMessage());
+            } else if (seenIds.contains(user.getId())) {
+                results[i] = BulkItemResult.failed(user.getId(), "id", "User with id " + user.getId() + " appears more than once in the request.");
+            } else if (seenEmails.contains(user.getEmail())) {
+                results[i] = BulkItemResult.failed(user.getId(), "email", "User with email " + user.getEmail() + " appears more than once in the request.");
+            } else if (seenUsernames.contains(user.getUsername())) {
+                results[i] = BulkItemResult.failed(user.getId(), "username", "User with username " + user.getUsername() + " appears more than once in the request.");
+            } else {
+                // Only entries that pass every check claim their values, so a rejected entry never blocks a later one
+                seenIds.add(user.getId());
+                seenEmails.add(user.getEmail());
+                seenUsernames.add(user.getUsername());
+                candidates.add(i);
+            }
+        }
+
+        // One query finds every email and username already held by another user
+        Map<String, Long> emailOwners = new HashMap<>();
+        Map<String, Long> usernameOwners = new HashMap<>();
+        if (!candidates.isEmpty()) {
+            for (UserModel existing : userRepository.findByEmailInOrUsernameIn(seenEmails, seenUsernames)) {
+                emailOwners.put(existing.getEmail(), existing.getId());
+                usernameOwners.put(existing.getUsername(), existing.getId());
+            }
+        }
+
+        List<UserModel> updates = new ArrayList<>(candidates.size());
+        List<Integer> updateIndexes = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            UserModel user = users.get(i);
+            Long emailOwner = emailOwners.get(user.getEmail());
+            Long usernameOwner = usernameOwners.get(user.getUsername());
+            if (emailOwner != null && !emailOwner.equals(user.getId())) {
+                results[i] = BulkItemResult.failed(user.getId(), "email", "User with email " + user.getEmail() + " already exists.");
+            } else if (usernameOwner != null && !usernameOwner.equals(user.getId())) {
+                results[i] = BulkItemResult.failed(user.getId(), "username", "User with username " + user.getUsername() + " already exists.");
+            } else {
+                updates.add(user);
+                updateIndexes.add(i);
+            }
+        }
+
+        List<Long> updatedIds = new ArrayList<>(updates.size());
+        if (!updates.isEmpty()) {
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (statement, user) -> {
+                statement.setString(1, user.getUsername());
+                statement.setString(2, user.getName());
+                statement.setString(3, user.getEmail());
+                statement.setLong(4, user.getId());
+            });
+            for (int j = 0; j < updates.size(); j++) {
+                UserModel user = updates.get(j);
+                if (counts[0][j] == 0) {
+                    results[updateIndexes.get(j)] = BulkItemResult.notFound(user.getId());
+                } else {
+                    results[updateIndexes.get(j)] = BulkItemResult.updated(user.getId());
+                    updatedIds.add(user.getId());
+                    userUniquenessIndex.add(user.getEmail(), user.getUsername());
+                }
+            }
+        }
+
+        userChangeFeed.recordUpserts(UserChange.UPDATED, updatedIds);
+        userCacheInvalidator.evictUsers(updatedIds);
+        userCacheInvalidator.publishUsersChanged(updatedIds);
+        logger.info("Bulk update finished - requested: {}, updated: {}", users.size(), updatedIds.size());
+        return List.of(results);
+    }
+
+    /**
+     * Deletes the users with a single statement and returns an outcome per distinct id, in request order.
+     */
+    @Transactional
+    public List<BulkItemResult> deleteUsers(List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        logger.info("Bulk deleting {} users", distinctIds.size());
+
+        Set<Long> deletedIds = new HashSet<>(jdbcTemplate.queryForList(DELETE_SQL, Long.class, (Object) distinctIds.toArray(new Long[0])));
+        List<BulkItemResult> results = new ArrayList<>(distinctIds.size());
+        for (Long id : distinctIds) {
+            results.add(deletedIds.contains(id) ? BulkItemResult.deleted(id) : BulkItemResult.notFound(id));
+        }
+
+        userChangeFeed.recordDeletes(deletedIds);
+        userCounter.add(-deletedIds.size());
+        userCacheInvalidator.evictUsers(deletedIds);
+        userCacheInvalidator.publishUsersChanged(deletedIds);
+        logger.info("Bulk delete finished - requested: {}, deleted: {}", distinctIds.size(), deletedIds.size());
+        return results;
+    }
+}
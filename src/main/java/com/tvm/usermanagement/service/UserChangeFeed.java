@@ -0,0 +1,175 @@
+package com.tvm.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.exception.ChangeHistoryExpiredException;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Change feed of user writes, backed by the {@code user_changes} outbox table. Writers record events in their
+ * own transaction, so an event exists exactly when its write committed. {@link #publish} then gives committed
+ * events their feed sequence numbers in batches, and {@link #prune} compacts and expires old ones.
+ */
+@Component
+public class UserChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeFeed.class);
+
+    // Advisory lock key shared by every node; only its holder numbers or prunes events
+    private static final long FEED_LOCK = 0x7573657263686eL;
+
+    private static final String RECORD_UPSERTS_SQL = "INSERT INTO user_changes (user_id, change_type, payload)"
+            + " SELECT id, ?, jsonb_build_object('id', id, 'username', username, 'name', name, 'email', email, 'version', version)"
+            + " FROM users WHERE id = ANY(?) ORDER BY id";
+    private static final String RECORD_DELETES_SQL = "INSERT INTO user_changes (user_id, change_type)"
+            + " SELECT id, ? FROM unnest(?::bigint[]) AS id ORDER BY id";
+    // Numbers the oldest unpublished rows after the highest number ever handed out, including expired ones
+    private static final String PUBLISH_SQL = "UPDATE user_changes c SET seq = numbered.seq, published_at = now()"
+            + " FROM (SELECT id, greatest((SELECT coalesce(max(seq), 0) FROM user_changes), (SELECT horizon FROM user_change_retention))"
+            + " + row_number() OVER (ORDER BY id) AS seq"
+            + " FROM (SELECT id FROM user_changes WHERE seq IS NULL ORDER BY id LIMIT ?) pending) numbered"
+            + " WHERE c.id = numbered.id";
+    // An event is superseded once a later event of the same user exists; consumers only need the latest
+    private static final String COMPACT_SQL = "DELETE FROM user_changes c WHERE c.seq IS NOT NULL"
+            + " AND c.published_at < now() - ? * interval '1 millisecond'"
+            + " AND EXISTS (SELECT 1 FROM user_changes later WHERE later.user_id = c.user_id AND later.seq > c.seq)";
+    // Moves the horizon up to the last expired event in the same statement, and returns how many expired
+    private static final String EXPIRE_SQL = "WITH expired AS (DELETE FROM user_changes WHERE seq IS NOT NULL"
+            + " AND published_at < now() - ? * interval '1 millisecond' RETURNING seq),"
+            + " horizon AS (UPDATE user_change_retention SET horizon = greatest(horizon, (SELECT coalesce(max(seq), 0) FROM expired)))"
+            + " SELECT count(*) FROM expired";
+    private static final String READ_SQL = "SELECT seq, user_id, change_type, payload::text AS payload, created_at"
+            + " FROM user_changes WHERE seq > ? ORDER BY seq LIMIT ?";
+    private static final String HEAD_SQL = "SELECT greatest((SELECT coalesce(max(seq), 0) FROM user_changes), horizon) FROM user_change_retention";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${user.changes.publish-batch-size:1000}")
+    private int publishBatchSize;
+
+    @Value("${user.changes.compact-after-ms:3600000}")
+    private long compactAfterMs;
+
+    @Value("${user.changes.retention-ms:604800000}")
+    private long retentionMs;
+
+    /**
+     * Records that the given users were created or updated, with their current rows as the payload.
+     * Must be called in the transaction that made the change.
+     */
+    public void recordUpserts(String type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        // Writing the users first takes their row locks, so a concurrent change to the same user can only
+        // record its event after this transaction commits, and gets a higher id. Flushing through the repository
+        // also turns constraint violations into the usual DataIntegrityViolationException
+        userRepository.flush();
+        jdbcTemplate.update(RECORD_UPSERTS_SQL, type, ids.toArray(new Long[0]));
+    }
+
+    /**
+     * Records that the given users were deleted. Must be called in the transaction that deleted them.
+     */
+    public void recordDeletes(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        userRepository.flush();
+        jdbcTemplate.update(RECORD_DELETES_SQL, UserChange.DELETED, ids.toArray(new Long[0]));
+    }
+
+    /**
+     * Gives up to one batch of committed events their sequence numbers and returns how many were published.
+     * Events of transactions still in progress are not visible yet and get later numbers once they commit.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${user.changes.publish-interval-ms:200}")
+    public int publish() {
+        if (!tryLock()) {
+            return 0;
+        }
+        return jdbcTemplate.update(PUBLISH_SQL, publishBatchSize);
+    }
+
+    /**
+     * Drops published events superseded by a later event of the same user once they are older than
+     * {@code compact-after-ms}, and every published event older than {@code retention-ms}.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${user.changes.prune-interval-ms:60000}", initialDelayString = "${user.changes.prune-interval-ms:60000}")
+    public void prune() {
+        if (!tryLock()) {
+            return;
+        }
+        int compacted = jdbcTemplate.update(COMPACT_SQL, compactAfterMs);
+        Long expired = jdbcTemplate.queryForObject(EXPIRE_SQL, Long.class, retentionMs);
+        if (compacted > 0 || (expired != null && expired > 0)) {
+            logger.info("Pruned user change feed - compacted: {}, expired: {}", compacted, expired);
+        }
+    }
+
+    /**
+     * Up to {@code limit} published events after sequence number {@code after}, in order.
+     * Fails if events after {@code after} have already expired.
+     */
+    @Transactional(readOnly = true)
+    public List<UserChange> getChanges(long after, int limit) {
+        List<UserChange> changes = jdbcTemplate.query(READ_SQL, this::toChange, after, limit);
+        // Read after the events, so expiry running in between is caught as well
+        Long horizon = jdbcTemplate.queryForObject("SELECT horizon FROM user_change_retention", Long.class);
+        if (horizon != null && after < horizon) {
+            throw new ChangeHistoryExpiredException("Changes after " + after + " have expired; reload all users and resume from the current position.");
+        }
+        return changes;
+    }
+
+    /**
+     * The sequence number of the latest published event, to resume from after loading every user.
+     */
+    @Transactional(readOnly = true)
+    public long getHead() {
+        Long head = jdbcTemplate.queryForObject(HEAD_SQL, Long.class);
+        return head != null ? head : 0;
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, FEED_LOCK));
+    }
+
+    private UserChange toChange(ResultSet rs, int rowNum) throws SQLException {
+        String payload = rs.getString("payload");
+        UserModel user = null;
+        if (payload != null) {
+            try {
+                user = objectMapper.readValue(payload, UserModel.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unreadable user change payload at seq " + rs.getLong("seq"), e);
+            }
+        }
+        return new UserChange(rs.getLong("seq"), rs.getLong("user_id"), rs.getString("change_type"), user,
+                rs.getTimestamp("created_at").toInstant());
+    }
+}
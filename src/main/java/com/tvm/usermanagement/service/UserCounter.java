@@ -0,0 +1,86 @@
+package com.tvm.usermanagement.service;
+
+import com.tvm.usermanagement.repository.UserRepository;
+import com.tvm.usermanagement.util.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory total user count, so listing users does not need a {@code SELECT count(*)}.
+ * Writes on this node adjust it after they commit, and it is periodically reconciled with the database,
+ * which also picks up writes made on other nodes. In {@code estimate} mode the reconciliation reads
+ * the planner's row estimate from {@code pg_class.reltuples} instead of scanning the table.
+ */
+@Component
+public class UserCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCounter.class);
+    private static final String ESTIMATE_SQL = "SELECT reltuples::bigint FROM pg_class WHERE oid = 'users'::regclass";
+
+    public static final String MODE_EXACT = "exact";
+    public static final String MODE_ESTIMATE = "estimate";
+
+    private final AtomicLong count = new AtomicLong();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${user.count.mode:exact}")
+    private String mode;
+
+    @PostConstruct
+    public void init() {
+        // A call on this bean bypasses its proxy, so @Transactional on reconcile() would not apply
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> reconcile());
+    }
+
+    public long get() {
+        return count.get();
+    }
+
+    /**
+     * Adds {@code delta} once the current transaction commits.
+     */
+    public void add(long delta) {
+        TransactionUtil.afterCommit(() -> count.addAndGet(delta));
+    }
+
+    // Writes that commit while the count query runs, or that a replica has not replayed yet, can be off by a few until the next run
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${user.count.reconcile-interval-ms:60000}", initialDelayString = "${user.count.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        long reconciled = MODE_ESTIMATE.equals(mode) ? estimate() : userRepository.count();
+        long previous = count.getAndSet(reconciled);
+        if (previous != reconciled) {
+            logger.info("Reconciled total user count - mode: {}, previous: {}, current: {}", mode, previous, reconciled);
+        }
+    }
+
+    private long estimate() {
+        Long estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class);
+        // reltuples is -1 until the table has been vacuumed or analyzed at least once
+        if (estimate == null || estimate < 0) {
+            return userRepository.count();
+        }
+        return estimate;
+    }
+}
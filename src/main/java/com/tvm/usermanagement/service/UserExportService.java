@@ -0,0 +1,79 @@
+package com.tvm.usermanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import com.tvm.usermanagement.util.CsvUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole users table to an output stream as NDJSON or CSV, holding at most one fetch of rows in memory.
+ */
+@Service
+public class UserExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExportService.class);
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CSV_HEADER = "id,username,name,email\n".getBytes(StandardCharsets.UTF_8);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public void exportUsers(String format, OutputStream target) throws IOException {
+        logger.info("Exporting all users - format: {}", format);
+
+        boolean csv = FORMAT_CSV.equals(format);
+        OutputStream out = new BufferedOutputStream(target);
+        if (csv) {
+            out.write(CSV_HEADER);
+        }
+
+        long rows = 0;
+        try (Stream<UserModel> users = userRepository.streamAllBy()) {
+            Iterator<UserModel> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                UserModel user = iterator.next();
+                out.write(csv ? toCsvRow(user) : objectMapper.writeValueAsBytes(user));
+                if (!csv) {
+                    out.write(NEWLINE);
+                }
+                // Drop the rows already written so the persistence context never grows past one fetch
+                if (++rows % UserRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+
+        logger.info("Exported {} users", rows);
+    }
+
+    private static byte[] toCsvRow(UserModel user) {
+        String row = user.getId() + "," + CsvUtil.escape(user.getUsername()) + "," + CsvUtil.escape(user.getName()) + "," + CsvUtil.escape(user.getEmail()) + "\n";
+        return row.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,279 @@
+package com.tvm.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvm.usermanagement.cache.UserCacheInvalidator;
+import com.tvm.usermanagement.common.ImportRowResult;
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.exception.UserAlreadyExistsException;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import com.tvm.usermanagement.util.CsvUtil;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams users from NDJSON or CSV input into the database in chunks, writing one result line per row.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+    private static final String INSERT_SQL = "INSERT INTO users (id, username, name, email) VALUES (?, ?, ?, ?)";
+    private static final String ALLOCATE_IDS_SQL = "SELECT nextval('" + UserModel.ID_SEQUENCE + "') FROM generate_series(1, ?)";
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Autowired
+    private UserCounter userCounter;
+
+    @Autowired
+    private UserUniquenessIndex userUniquenessIndex;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${user.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void importUsers(InputStream in, String format, OutputStream out) throws IOException {
+        logger.info("Starting bulk user import - format: {}, chunkSize: {}", format, chunkSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String[] csvHeader = FORMAT_CSV.equals(format) ? readCsvHeader(reader) : null;
+
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        long rowNumber = 0;
+        long created = 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                rowNumber++;
+                chunk.add(csvHeader != null ? parseCsvRow(rowNumber, csvHeader, line) : parseJsonRow(rowNumber, line));
+                if (chunk.size() >= chunkSize) {
+                    created += processChunk(chunk, out);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                created += processChunk(chunk, out);
+            }
+        } finally {
+            // Invalidate once for the whole import rather than once per row; new users have no by-id entries yet
+            userCacheInvalidator.evictListings();
+            userCacheInvalidator.publishListingsChanged();
+        }
+
+        logger.info("Bulk user import finished - rows: {}, created: {}, failed: {}", rowNumber, created, rowNumber - created);
+    }
+
+    // Validates, de-duplicates and inserts one chunk, then writes its results in row order
+    private int processChunk(List<PendingRow> chunk, OutputStream out) throws IOException {
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenUsernames = new HashSet<>();
+        List<PendingRow> candidates = new ArrayList<>(chunk.size());
+
+        for (PendingRow row : chunk) {
+            if (row.result != null) {
+                continue;
+            }
+            Set<ConstraintViolation<UserModel>> violations = validator.validate(row.user);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<UserModel> violation = violations.iterator().next();
+                row.result = ImportRowResult.failed(row.number, violation.getPropertyPath().toString(), violation.getMessage());
+            } else if (seenEmails.contains(row.user.getEmail())) {
+                row.result = ImportRowResult.failed(row.number, "email", "User with email " + row.user.getEmail() + " appears more than once in the import.");
+            } else if (seenUsernames.contains(row.user.getUsername())) {
+                row.result = ImportRowResult.failed(row.number, "username", "User with username " + row.user.getUsername() + " appears more than once in the import.");
+            } else {
+                // Only rows that pass every check claim their values, so a rejected row never blocks a later one
+                seenEmails.add(row.user.getEmail());
+                seenUsernames.add(row.user.getUsername());
+                candidates.add(row);
+            }
+        }
+
+        int created = 0;
+        if (!candidates.isEmpty()) {
+            try {
+                created = transactionTemplate.execute(status -> insertChunk(candidates, seenEmails, seenUsernames));
+            } catch (DataIntegrityViolationException e) {
+                // Another writer took one of these emails or usernames since the duplicate check; retry row by row
+                created = insertRowByRow(candidates);
+            }
+        }
+
+        for (PendingRow row : chunk) {
+            out.write(objectMapper.writeValueAsBytes(row.result));
+            out.write(NEWLINE);
+        }
+        out.flush();
+        return created;
+    }
+
+    private int insertChunk(List<PendingRow> candidates, Set<String> emails, Set<String> usernames) {
+        Set<String> existingEmails = new HashSet<>();
+        Set<String> existingUsernames = new HashSet<>();
+        for (UserModel existing : userRepository.findByEmailInOrUsernameIn(emails, usernames)) {
+            existingEmails.add(existing.getEmail());
+            existingUsernames.add(existing.getUsername());
+        }
+
+        List<PendingRow> inserts = new ArrayList<>(candidates.size());
+        for (PendingRow row : candidates) {
+            if (existingEmails.contains(row.user.getEmail())) {
+                row.result = ImportRowResult.failed(row.number, "email", "User with email " + row.user.getEmail() + " already exists.");
+            } else if (existingUsernames.contains(row.user.getUsername())) {
+                row.result = ImportRowResult.failed(row.number, "username", "User with username " + row.user.getUsername() + " already exists.");
+            } else {
+                inserts.add(row);
+            }
+        }
+        if (inserts.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = allocateIds(inserts.size());
+        for (int i = 0; i < inserts.size(); i++) {
+            inserts.get(i).id = ids.get(i);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (statement, row) -> {
+            statement.setLong(1, row.id);
+            statement.setString(2, row.user.getUsername());
+            statement.setString(3, row.user.getName());
+            statement.setString(4, row.user.getEmail());
+        });
+        for (PendingRow row : inserts) {
+            row.result = ImportRowResult.created(row.number, row.id);
+            userUniquenessIndex.add(row.user.getEmail(), row.user.getUsername());
+        }
+        userChangeFeed.recordUpserts(UserChange.CREATED, ids);
+        userCounter.add(inserts.size());
+        return inserts.size();
+    }
+
+    private int insertRowByRow(List<PendingRow> rows) {
+        int created = 0;
+        for (PendingRow row : rows) {
+            List<PendingRow> single = List.of(row);
+            try {
+                created += transactionTemplate.execute(status ->
+                        insertChunk(single, Set.of(row.user.getEmail()), Set.of(row.user.getUsername())));
+            } catch (DataIntegrityViolationException e) {
+                UserAlreadyExistsException duplicate = UserAlreadyExistsException.fromConstraintViolation(e);
+                row.result = duplicate != null
+                        ? ImportRowResult.failed(row.number, duplicate.getField(), duplicate.getMessage())
+                        : ImportRowResult.failed(row.number, null, "Row violates a database constraint.");
+            }
+        }
+        return created;
+    }
+
+    // Reserves ids from the same pooled sequence Hibernate uses: each nextval is the top of a block of ID_ALLOCATION_SIZE ids
+    private List<Long> allocateIds(int count) {
+        int blocks = (count + UserModel.ID_ALLOCATION_SIZE - 1) / UserModel.ID_ALLOCATION_SIZE;
+        List<Long> ids = new ArrayList<>(blocks * UserModel.ID_ALLOCATION_SIZE);
+        for (Long hi : jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, blocks)) {
+            for (long id = hi - UserModel.ID_ALLOCATION_SIZE + 1; id <= hi; id++) {
+                ids.add(id);
+            }
+        }
+        return ids.subList(0, count);
+    }
+
+    private PendingRow parseJsonRow(long rowNumber, String line) {
+        try {
+            return new PendingRow(rowNumber, objectMapper.readValue(line, UserModel.class));
+        } catch (JsonProcessingException e) {
+            return PendingRow.failed(rowNumber, "Malformed JSON row: " + e.getOriginalMessage());
+        }
+    }
+
+    private String[] readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return new String[0];
+        }
+        List<String> columns = CsvUtil.splitLine(header);
+        return columns.stream().map(column -> column.trim().toLowerCase()).toArray(String[]::new);
+    }
+
+    private PendingRow parseCsvRow(long rowNumber, String[] header, String line) {
+        List<String> values = CsvUtil.splitLine(line);
+        if (values.size() != header.length) {
+            return PendingRow.failed(rowNumber, "Expected " + header.length + " columns but found " + values.size());
+        }
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            row.put(header[i], values.get(i));
+        }
+        return new PendingRow(rowNumber, new UserModel(row.get("username"), row.get("name"), row.get("email")));
+    }
+
+    private static class PendingRow {
+        private final long number;
+        private final UserModel user;
+        private Long id;
+        private ImportRowResult result;
+
+        private PendingRow(long number, UserModel user) {
+            this.number = number;
+            this.user = user;
+        }
+
+        private static PendingRow failed(long number, String message) {
+            PendingRow row = new PendingRow(number, null);
+            row.result = ImportRowResult.failed(number, null, message);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.tvm.usermanagement.service;
+
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.model.UserModel;
+
+import java.util.List;
+
+/**
+ * Backend for the user search. Implementations return matches in descending id order, starting strictly
+ * below {@code lastId} when it is not null.
+ */
+public interface UserSearch {
+
+    /**
+     * @param query  the lower-cased search text
+     * @param prefix true to match only at the start of a field, false to match anywhere in it
+     */
+    List<UserModel> find(String query, UserSearchField field, boolean prefix, Long lastId, int limit);
+}
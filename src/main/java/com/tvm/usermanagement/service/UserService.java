@@ -1,21 +1,51 @@
 package com.tvm.usermanagement.service;
 
+import com.tvm.usermanagement.cache.SingleFlight;
+import com.tvm.usermanagement.cache.UserCacheInvalidator;
+import com.tvm.usermanagement.common.BatchResult;
+import com.tvm.usermanagement.common.CursorPage;
+import com.tvm.usermanagement.common.PageCursor;
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.common.UserField;
+import com.tvm.usermanagement.common.UserPatch;
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.common.UserSortField;
+import com.tvm.usermanagement.exception.InvalidCursorException;
 import com.tvm.usermanagement.exception.UserAlreadyExistsException;
+import com.tvm.usermanagement.exception.UserNotFoundException;
 import com.tvm.usermanagement.model.UserModel;
 import com.tvm.usermanagement.repository.UserRepository;
+import com.tvm.usermanagement.util.ReadRoutingUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 @Service
@@ -24,74 +54,418 @@ public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
     private static final Pattern emailPattern = Pattern.compile(EMAIL_REGEX);
+    // Search cursors are bound to the query they were issued for
+    private static final String SEARCH_CURSOR_PREFIX = "search:";
+
+    // Concurrent cache misses for the same key share one database load
+    private final SingleFlight<Long, UserModel> userLoads = new SingleFlight<>();
+    private final SingleFlight<List<Object>, Object> pageLoads = new SingleFlight<>();
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserCounter userCounter;
+
+    @Autowired
+    private UserUniquenessIndex userUniquenessIndex;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    @Autowired
+    private UserSearch userSearch;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     // Helper method to validate user data
 
 
+    // New users reach cached pages when those entries expire (usersPagination has a short TTL)
     @Transactional
-    @CacheEvict(value = {"users", "totalUsersCount", "usersPagination"}, allEntries = true) // Clears all relevant caches
+    @Caching(put = @CachePut(value = "users", key = "#result.id"),
+            evict = @CacheEvict(value = "allUsers", allEntries = true))
     public UserModel createUser(UserModel user) {
         logger.info("Creating a new user with username: {}", user.getUsername());
-        return userRepository.save(user);
+        UserModel createdUser = userRepository.save(user);
+        userChangeFeed.recordUpserts(UserChange.CREATED, List.of(createdUser.getId()));
+        userCounter.add(1);
+        userUniquenessIndex.add(createdUser.getEmail(), createdUser.getUsername());
+        userCacheInvalidator.publishUserChanged(createdUser.getId());
+        return createdUser;
     }
 
-    @Cacheable(value = "users")
+    @Transactional(readOnly = true)
+    @Cacheable(value = "allUsers")
     public List<UserModel> getAllUsers() {
         logger.info("Fetching all users.");
         return userRepository.findAll();
     }
 
-    @Cacheable(value = "usersPagination", key = "{#offset, #pageSize, #sortParam}")
-    public Page<UserModel> getAllUsersByPagination(int offset, int pageSize, String sortParam) {
-        logger.info("Fetching users with pagination - offset: {}, pageSize: {}, sortParam: {}", offset, pageSize, sortParam);
-        return userRepository.findAll(PageRequest.of(offset, pageSize, Sort.by(sortParam).descending()));
+    @Cacheable(value = "usersPagination", key = "{#offset, #pageSize, #sort}")
+    @SuppressWarnings("unchecked")
+    public Slice<UserModel> getAllUsersByPagination(int offset, int pageSize, UserSort sort) {
+        logger.info("Fetching users with pagination - offset: {}, pageSize: {}, sort: {}", offset, pageSize, sort);
+        // A Slice reads pageSize + 1 rows instead of running a separate COUNT; the total comes from UserCounter
+        return (Slice<UserModel>) loadOnce(pageLoads, Arrays.asList("offset", offset, pageSize, sort),
+                () -> inReadOnlyTransaction(() -> userRepository.findAllBy(PageRequest.of(offset, pageSize, toSort(sort)))));
     }
 
-    @Cacheable(value = "users", key = "#id")
+    @Cacheable(value = "usersPagination", key = "{'cursor', #cursor, #pageSize, #sort}")
+    @SuppressWarnings("unchecked")
+    public CursorPage<UserModel> getUsersByCursor(String cursor, int pageSize, UserSort sort) {
+        logger.info("Fetching users with keyset pagination - cursor: {}, pageSize: {}, sort: {}", cursor, pageSize, sort);
+        return (CursorPage<UserModel>) loadOnce(pageLoads, Arrays.asList("cursor", cursor, pageSize, sort),
+                () -> inReadOnlyTransaction(() -> loadUsersByCursor(cursor, pageSize, sort)));
+    }
+
+    private CursorPage<UserModel> loadUsersByCursor(String cursor, int pageSize, UserSort sort) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+
+        PageCursor pageCursor = decodeCursor(cursor, sort);
+        Long lastId = pageCursor != null ? pageCursor.getLastId() : null;
+        Object lastSortKey = pageCursor != null ? pageCursor.getLastSortKey() : null;
+
+        // Read one extra row to find out whether another page follows
+        List<UserModel> users = userRepository.findPageAfter(sort, lastSortKey, lastId, pageSize + 1);
+        if (users.size() <= pageSize) {
+            return new CursorPage<>(users, null);
+        }
+
+        List<UserModel> content = users.subList(0, pageSize);
+        UserModel last = content.get(pageSize - 1);
+        String nextCursor = new PageCursor(sort.getKey(), last.getId(), sort.getField().keyOf(last)).encode();
+        return new CursorPage<>(List.copyOf(content), nextCursor);
+    }
+
+    /**
+     * Finds users whose username, name or email (per {@code field}) contains, or with {@code prefix} starts with,
+     * the case-insensitive {@code query}. Results are newest first and paged with a keyset cursor on the id.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserModel> searchUsers(String query, UserSearchField field, boolean prefix, String cursor, int pageSize) {
+        logger.info("Searching users - query: {}, field: {}, prefix: {}, cursor: {}, pageSize: {}", query, field, prefix, cursor, pageSize);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+
+        String sortBy = SEARCH_CURSOR_PREFIX + field.name() + ":" + prefix + ":" + query;
+        Long lastId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            PageCursor pageCursor = PageCursor.decode(cursor);
+            if (!pageCursor.getSortBy().equals(sortBy)) {
+                throw new InvalidCursorException("Cursor was issued for a different search");
+            }
+            lastId = pageCursor.getLastId();
+        }
+
+        List<UserModel> users = userSearch.find(query.toLowerCase(Locale.ROOT), field, prefix, lastId, pageSize + 1);
+        if (users.size() <= pageSize) {
+            return new CursorPage<>(users, null);
+        }
+
+        List<UserModel> content = users.subList(0, pageSize);
+        UserModel last = content.get(pageSize - 1);
+        return new CursorPage<>(List.copyOf(content), new PageCursor(sortBy, last.getId(), String.valueOf(last.getId())).encode());
+    }
+
+    // Misses are not cached, so ids assigned later (e.g. by the bulk import) are never shadowed by a stale null
+    @Cacheable(value = "users", key = "#id", unless = "#result == null")
     public UserModel getUserById(Long id) {
         logger.info("Fetching user by ID: {}", id);
-        return userRepository.findById(id).orElse(null);
+        return loadOnce(userLoads, id, () -> inReadOnlyTransaction(() -> userRepository.findById(id).orElse(null)));
+    }
+
+    /**
+     * Looks every id up in the users cache first, loads only the misses with one IN query and caches them.
+     */
+    @Transactional(readOnly = true)
+    public BatchResult<UserModel> getUsersByIds(List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Map<Long, UserModel> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+
+        Cache cache = cacheManager.getCache("users");
+        for (Long id : distinctIds) {
+            UserModel cached = cache != null ? cache.get(id, UserModel.class) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        logger.info("Fetching users by IDs - requested: {}, cache hits: {}, loading: {}", distinctIds.size(), found.size(), misses.size());
+
+        if (!misses.isEmpty()) {
+            for (UserModel user : userRepository.findAllById(misses)) {
+                found.put(user.getId(), user);
+                if (cache != null) {
+                    cache.put(user.getId(), user);
+                }
+            }
+        }
+
+        List<UserModel> items = new ArrayList<>(distinctIds.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            UserModel user = found.get(id);
+            if (user != null) {
+                items.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new BatchResult<>(items, missingIds);
+    }
+
+    /**
+     * Same as {@link #getAllUsersByPagination}, but selects only {@code fields} and returns them as rows, without
+     * loading any entities.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(value = "usersPagination", key = "{'fields', #fields, #offset, #pageSize, #sort}")
+    public Slice<Map<String, Object>> getUserFieldsByPagination(Set<UserField> fields, int offset, int pageSize, UserSort sort) {
+        logger.info("Fetching user fields with pagination - fields: {}, offset: {}, pageSize: {}, sort: {}", fields, offset, pageSize, sort);
+        PageRequest pageRequest = PageRequest.of(offset, pageSize);
+        List<Map<String, Object>> rows = userRepository.findFieldsPage(fields, sort, pageRequest.getOffset(), pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        return new SliceImpl<>(hasNext ? List.copyOf(rows.subList(0, pageSize)) : rows, pageRequest, hasNext);
+    }
+
+    /**
+     * Same as {@link #getUsersByCursor}, but selects only {@code fields}. Cursors are interchangeable between the two.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(value = "usersPagination", key = "{'fields-cursor', #fields, #cursor, #pageSize, #sort}")
+    public CursorPage<Map<String, Object>> getUserFieldsByCursor(Set<UserField> fields, String cursor, int pageSize, UserSort sort) {
+        logger.info("Fetching user fields with keyset pagination - fields: {}, cursor: {}, pageSize: {}, sort: {}", fields, cursor, pageSize, sort);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+
+        PageCursor pageCursor = decodeCursor(cursor, sort);
+        String sortColumn = sort.getField().getColumn();
+        List<Map<String, Object>> rows = userRepository.findFieldsAfter(fields, sort,
+                pageCursor != null ? pageCursor.getLastSortKey() : null, pageCursor != null ? pageCursor.getLastId() : null, pageSize + 1);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Map<String, Object> last = rows.get(pageSize - 1);
+            nextCursor = new PageCursor(sort.getKey(), (Long) last.get(UserField.ID.getColumn()), String.valueOf(last.get(sortColumn))).encode();
+        }
+        // The sort column is always read for the cursor, but only returned when it was asked for
+        if (!fields.contains(UserField.fromParam(sortColumn))) {
+            rows.forEach(row -> row.remove(sortColumn));
+        }
+        return new CursorPage<>(List.copyOf(rows), nextCursor);
+    }
+
+    /**
+     * Same as {@link #getUserById}, but returns only {@code fields}. A cached user is projected in memory;
+     * otherwise only those columns are read.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUserFieldsById(Long id, Set<UserField> fields) {
+        logger.info("Fetching user fields by ID: {}, fields: {}", id, fields);
+        Cache cache = cacheManager.getCache("users");
+        UserModel cached = cache != null ? cache.get(id, UserModel.class) : null;
+        if (cached == null) {
+            return userRepository.findFieldsById(fields, id);
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (UserField field : fields) {
+            row.put(field.getColumn(), field.readFrom(cached));
+        }
+        return row;
     }
 
     @Transactional
-    @CacheEvict(value = {"users", "totalUsersCount", "usersPagination"}, allEntries = true) // Clears all relevant caches
+    @Caching(put = @CachePut(value = "users", key = "#id"),
+            evict = @CacheEvict(value = "allUsers", allEntries = true))
     public UserModel updateUser(Long id, UserModel user) {
+        userCacheInvalidator.evictPagesContaining(id);
+        userCacheInvalidator.publishUserChanged(id);
         return userRepository.findById(id).map(existingUser -> {
+            checkVersion(existingUser, user.getVersion());
             existingUser.setName(user.getName());
             existingUser.setEmail(user.getEmail());
             existingUser.setUsername(user.getUsername());
             logger.info("Updating user with ID: {}", id);
-            return userRepository.save(existingUser);
-        }).orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + id));
+            userUniquenessIndex.add(user.getEmail(), user.getUsername());
+            UserModel updatedUser = userRepository.save(existingUser);
+            userChangeFeed.recordUpserts(UserChange.UPDATED, List.of(id));
+            return updatedUser;
+        }).orElseThrow(() -> new UserNotFoundException("User not found with id " + id));
     }
 
+    /**
+     * Applies only the fields present in the patch. Hibernate's dirty checking with {@code @DynamicUpdate} then
+     * writes just the changed columns (or nothing, if no value changed), guarded by the version column.
+     * Returns null if the user does not exist.
+     */
     @Transactional
-    @CacheEvict(value = {"users", "totalUsersCount", "usersPagination"}, allEntries = true) // Clears all relevant caches
+    @Caching(put = @CachePut(value = "users", key = "#id", unless = "#result == null"),
+            evict = @CacheEvict(value = "allUsers", allEntries = true))
+    public UserModel patchUser(Long id, UserPatch patch) {
+        logger.info("Patching user with ID: {}", id);
+        UserModel user = userRepository.findById(id).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        checkVersion(user, patch.getVersion());
+
+        boolean emailChanged = patch.getEmail() != null && !patch.getEmail().equals(user.getEmail());
+        boolean usernameChanged = patch.getUsername() != null && !patch.getUsername().equals(user.getUsername());
+        if (emailChanged || usernameChanged) {
+            UserModel candidate = new UserModel(
+                    usernameChanged ? patch.getUsername() : user.getUsername(),
+                    user.getName(),
+                    emailChanged ? patch.getEmail() : user.getEmail());
+            checkUserExists(candidate, id);
+            user.setEmail(candidate.getEmail());
+            user.setUsername(candidate.getUsername());
+            userUniquenessIndex.add(candidate.getEmail(), candidate.getUsername());
+        }
+        if (patch.getName() != null) {
+            user.setName(patch.getName());
+        }
+
+        userCacheInvalidator.evictPagesContaining(id);
+        userCacheInvalidator.publishUserChanged(id);
+        userChangeFeed.recordUpserts(UserChange.UPDATED, List.of(id));
+        return user;
+    }
+
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "users", key = "#id"),
+            @CacheEvict(value = "allUsers", allEntries = true)
+    })
     public void deleteUser(Long id) {
         logger.info("Deleting user with ID: {}", id);
-        userRepository.deleteById(id);
+        userCacheInvalidator.evictPagesContaining(id);
+        userCacheInvalidator.publishUserChanged(id);
+        // A concurrent delete may have removed the row already; only the delete that removed it changes the count
+        // and records the change, so the feed carries one DELETED event per user
+        int deleted = userRepository.removeById(id);
+        if (deleted == 1) {
+            userChangeFeed.recordDeletes(List.of(id));
+            userCounter.add(-1);
+        }
+    }
+
+    /**
+     * Deletes the user only if it is still at {@code expectedVersion}; the versioned DELETE also catches
+     * a change committed after the entity was loaded.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "users", key = "#id"),
+            @CacheEvict(value = "allUsers", allEntries = true)
+    })
+    public void deleteUser(Long id, Long expectedVersion) {
+        logger.info("Deleting user with ID: {} at version: {}", id, expectedVersion);
+        UserModel user = userRepository.findById(id).orElse(null);
+        if (user == null) {
+            return;
+        }
+        checkVersion(user, expectedVersion);
+        userCacheInvalidator.evictPagesContaining(id);
+        userCacheInvalidator.publishUserChanged(id);
+        int deleted = userRepository.removeByIdAndVersion(id, user.getVersion());
+        if (deleted == 0 && userRepository.existsById(id)) {
+            throw new ObjectOptimisticLockingFailureException(UserModel.class, id);
+        }
+        if (deleted == 1) {
+            userChangeFeed.recordDeletes(List.of(id));
+            userCounter.add(-1);
+        }
     }
 
     // Helper method to check if a user already exists by email or username
     public void checkUserExists(UserModel userModel) {
-        Optional<UserModel> existingUser = userRepository.findByEmailOrUsername(userModel.getEmail(), userModel.getUsername());
+        checkUserExists(userModel, null);
+    }
 
-        if (existingUser.isPresent()) {
-            if (existingUser.get().getEmail().equals(userModel.getEmail())) {
+    /**
+     * Same as {@link #checkUserExists(UserModel)}, but values held by the user {@code ownId} itself are not conflicts,
+     * so an update may re-submit its own unchanged email and username.
+     */
+    public void checkUserExists(UserModel userModel, Long ownId) {
+        // Definitely unused values skip the query; the unique constraints still catch any race
+        if (!userUniquenessIndex.mightContainEmail(userModel.getEmail())
+                && !userUniquenessIndex.mightContainUsername(userModel.getUsername())) {
+            return;
+        }
+
+        // The email and the username may belong to two different users. This runs outside any read-only
+        // transaction, so with replica routing it always reads the primary and sees every committed user
+        List<UserModel> existingUsers = userRepository.findByEmailInOrUsernameIn(List.of(userModel.getEmail()), List.of(userModel.getUsername()));
+
+        for (UserModel existingUser : existingUsers) {
+            if (!existingUser.getId().equals(ownId) && existingUser.getEmail().equals(userModel.getEmail())) {
                 throw new UserAlreadyExistsException("email", "User with email " + userModel.getEmail() + " already exists.");
             }
-            if (existingUser.get().getUsername().equals(userModel.getUsername())) {
+        }
+        for (UserModel existingUser : existingUsers) {
+            if (!existingUser.getId().equals(ownId) && existingUser.getUsername().equals(userModel.getUsername())) {
                 throw new UserAlreadyExistsException("username", "User with username " + userModel.getUsername() + " already exists.");
             }
         }
     }
 
-    @Cacheable(value = "totalUsersCount")
+    // Rejects an edit made against an older version than the stored one; a null expected version skips the check
+    private void checkVersion(UserModel user, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(UserModel.class, user.getId());
+        }
+    }
+
+    // Helper method to coalesce a load with concurrent ones for the same key. A caller that must read the primary
+    // runs its own load, since the one in flight may be reading a replica that has not caught up
+    private <K, V> V loadOnce(SingleFlight<K, V> loads, K key, Supplier<V> loader) {
+        return ReadRoutingUtil.isPrimaryRequired() ? loader.get() : loads.load(key, loader);
+    }
+
+    // Helper method to run a single-flight load in its own read-only transaction. Only the caller that runs the
+    // load holds a connection; the callers coalesced onto it wait without one
+    private <T> T inReadOnlyTransaction(Supplier<T> load) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> load.get());
+    }
+
+    // Helper method to decode a keyset cursor and check it was issued for the same sort; null when there is none
+    private PageCursor decodeCursor(String cursor, UserSort sort) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        if (!pageCursor.getSortBy().equals(sort.getKey())) {
+            throw new InvalidCursorException("Cursor was issued for sort " + pageCursor.getSortBy() + ", not " + sort.getKey());
+        }
+        return pageCursor;
+    }
+
+    // Helper method to order by the sort field, then the id, matching the (field, id) indexes
+    private Sort toSort(UserSort sort) {
+        Sort.Direction direction = sort.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return sort.getField() == UserSortField.ID
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sort.getField().getColumn(), "id");
+    }
+
     public long getTotalUsersCount() {
-        logger.info("Fetching total user count from the database");
-        return userRepository.count();
+        return userCounter.get();
     }
 }
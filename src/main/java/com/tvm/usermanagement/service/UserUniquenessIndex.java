@@ -0,0 +1,132 @@
+package com.tvm.usermanagement.service;
+
+import com.tvm.usermanagement.util.BloomFilter;
+import com.tvm.usermanagement.util.ReadRoutingUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of every email and username, used to skip the database lookup in
+ * {@link UserService#checkUserExists} when a value is definitely new.
+ * Values are normalized (trimmed, lower-cased) before hashing, so a hit only means "maybe taken" and
+ * still goes to the database, which also stays the final word through its unique constraints.
+ * The filter cannot forget values, so it is rebuilt periodically to drop emails and usernames that were
+ * changed or deleted.
+ */
+@Component
+public class UserUniquenessIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserUniquenessIndex.class);
+    private static final String SCAN_SQL = "SELECT email, username FROM users";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${user.uniqueness-index.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${user.uniqueness-index.false-positive-probability:0.01}")
+    private double falsePositiveProbability;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Null until the first build finishes; every lookup is a "maybe" until then
+    private volatile BloomFilter current;
+    // Non-null while a rebuild is scanning, so concurrent writes land in both filters
+    private volatile BloomFilter building;
+
+    public boolean mightContainEmail(String email) {
+        BloomFilter filter = current;
+        return filter == null || email == null || filter.mightContain(emailKey(email));
+    }
+
+    public boolean mightContainUsername(String username) {
+        BloomFilter filter = current;
+        return filter == null || username == null || filter.mightContain(usernameKey(username));
+    }
+
+    public void add(String email, String username) {
+        BloomFilter filter = current;
+        BloomFilter next = building;
+        for (BloomFilter target : new BloomFilter[]{filter, next}) {
+            if (target != null) {
+                if (email != null) {
+                    target.add(emailKey(email));
+                }
+                if (username != null) {
+                    target.add(usernameKey(username));
+                }
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread builder = new Thread(this::rebuild, "user-uniqueness-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Scheduled(cron = "${user.uniqueness-index.rebuild-cron:0 0 3 * * *}")
+    public void rebuild() {
+        // A lock rather than synchronized, which would pin a virtual thread for the whole table scan
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        BloomFilter next = new BloomFilter(expectedUsers * 2, falsePositiveProbability);
+        building = next;
+        try {
+            JdbcTemplate scanTemplate = new JdbcTemplate(dataSource);
+            scanTemplate.setFetchSize(1000);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            // Postgres only streams with a fetch size inside a transaction. The scan reads the primary even with
+            // replica routing, since a value missing from a lagging replica would let a duplicate skip the check
+            long rows = ReadRoutingUtil.onPrimary(() -> transactionTemplate.execute(status -> {
+                long[] count = {0};
+                scanTemplate.query(SCAN_SQL, resultSet -> {
+                    next.add(emailKey(resultSet.getString(1)));
+                    next.add(usernameKey(resultSet.getString(2)));
+                    count[0]++;
+                });
+                return count[0];
+            }));
+            current = next;
+            logger.info("Built user uniqueness index from {} users in {} ms", rows, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.warn("Could not build user uniqueness index, lookups fall back to the database: {}", e.getMessage());
+        } finally {
+            building = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + normalize(email);
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + normalize(username);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tvm.usermanagement.util;
+
+import com.tvm.usermanagement.model.UserModel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ETags computed from user ids and versions, so conditional requests can be answered from cached
+ * entities without serializing the response.
+ */
+public class ETagUtil {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETagUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    // The version changes on every write, so id + version identifies one representation of a user
+    public static String forUser(UserModel user) {
+        return "\"" + user.getId() + "-" + versionOf(user) + "\"";
+    }
+
+    // FNV-1a over the total, the ids and versions on the page and the next cursor. Weak, since pages are only
+    // revalidated with If-None-Match, and Tomcat does not gzip responses that carry a strong ETag
+    public static String forPage(List<UserModel> users, long total, String nextCursor) {
+        long hash = mix(FNV_OFFSET_BASIS, total);
+        for (UserModel user : users) {
+            hash = mix(hash, user.getId());
+            hash = mix(hash, versionOf(user));
+        }
+        if (nextCursor != null) {
+            hash = mix(hash, nextCursor.hashCode());
+        }
+        return "W/\"p-" + Long.toHexString(hash) + "\"";
+    }
+
+    // Sparse fieldset rows may not include the version, so the hash covers the returned values themselves
+    public static String forRows(List<Map<String, Object>> rows, long total, String nextCursor) {
+        long hash = mix(FNV_OFFSET_BASIS, total);
+        for (Map<String, Object> row : rows) {
+            for (Map.Entry<String, Object> column : row.entrySet()) {
+                hash = mix(hash, column.getKey().hashCode());
+                hash = mix(hash, Objects.hashCode(column.getValue()));
+            }
+        }
+        if (nextCursor != null) {
+            hash = mix(hash, nextCursor.hashCode());
+        }
+        return "W/\"f-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Whether an {@code If-Match} header value ({@code *} or a comma-separated list of ETags) matches the current ETag.
+     * Weak ETags never match, as If-Match requires strong comparison.
+     */
+    public static boolean matches(String ifMatch, String etag) {
+        for (String candidate : ifMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long versionOf(UserModel user) {
+        return user.getVersion() != null ? user.getVersion() : 0L;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,172 @@
+package com.tvm.usermanagement.util;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.tvm.usermanagement.common.ApiResponse;
+import com.tvm.usermanagement.model.UserModel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes {@code ApiResponse<UserModel>} and {@code ApiResponse<List<UserModel>>} as the {@code UserResponse}
+ * message in {@code src/main/proto/user_response.proto}, written field by field so no generated classes are needed.
+ * Default values (zero, empty, null) are omitted, as in proto3.
+ */
+public class ProtobufUtil {
+
+    public static final String MEDIA_TYPE = "application/x-protobuf";
+
+    private static final int RESPONSE_STATUS = 1;
+    private static final int RESPONSE_MESSAGE = 2;
+    private static final int RESPONSE_RECORD_COUNT = 3;
+    private static final int RESPONSE_USER = 4;
+    private static final int RESPONSE_USERS = 5;
+    private static final int RESPONSE_NEXT_CURSOR = 6;
+    private static final int USER_LIST_USERS = 1;
+    private static final int USER_ID = 1;
+    private static final int USER_USERNAME = 2;
+    private static final int USER_NAME = 3;
+    private static final int USER_EMAIL = 4;
+    private static final int USER_VERSION = 5;
+
+    private ProtobufUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Writes the response; data other than a user, a list of users or null is rejected with IllegalArgumentException.
+     */
+    public static void write(ApiResponse<?> response, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out);
+        if (response.getStatus() != 0) {
+            output.writeInt32(RESPONSE_STATUS, response.getStatus());
+        }
+        writeString(output, RESPONSE_MESSAGE, response.getMessage());
+        if (response.getRecordCount() != 0) {
+            output.writeInt32(RESPONSE_RECORD_COUNT, response.getRecordCount());
+        }
+
+        Object data = response.getData();
+        if (data instanceof UserModel user) {
+            output.writeTag(RESPONSE_USER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(userSize(user));
+            writeUser(output, user);
+        } else if (data instanceof List<?> users) {
+            // Sizes are computed once up front, since every nested message is prefixed with its length
+            int[] sizes = new int[users.size()];
+            int listSize = 0;
+            for (int i = 0; i < sizes.length; i++) {
+                if (!(users.get(i) instanceof UserModel user)) {
+                    throw new IllegalArgumentException("Only lists of users can be encoded as protobuf");
+                }
+                sizes[i] = userSize(user);
+                listSize += CodedOutputStream.computeTagSize(USER_LIST_USERS) + CodedOutputStream.computeUInt32SizeNoTag(sizes[i]) + sizes[i];
+            }
+            output.writeTag(RESPONSE_USERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(listSize);
+            for (int i = 0; i < sizes.length; i++) {
+                output.writeTag(USER_LIST_USERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(sizes[i]);
+                writeUser(output, (UserModel) users.get(i));
+            }
+        } else if (data != null) {
+            throw new IllegalArgumentException("Cannot encode " + data.getClass().getSimpleName() + " as protobuf");
+        }
+
+        writeString(output, RESPONSE_NEXT_CURSOR, response.getNextCursor());
+        output.flush();
+    }
+
+    /**
+     * Reads a {@code UserResponse}; data is a UserModel, a List of UserModel, or null.
+     */
+    public static ApiResponse<Object> read(InputStream in) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        ApiResponse<Object> response = new ApiResponse<>();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case RESPONSE_STATUS -> response.setStatus(input.readInt32());
+                case RESPONSE_MESSAGE -> response.setMessage(input.readString());
+                case RESPONSE_RECORD_COUNT -> response.setRecordCount(input.readInt32());
+                case RESPONSE_USER -> response.setData(readUser(input));
+                case RESPONSE_USERS -> {
+                    List<UserModel> users = new ArrayList<>();
+                    int limit = input.pushLimit(input.readRawVarint32());
+                    int userTag;
+                    while ((userTag = input.readTag()) != 0) {
+                        if (WireFormat.getTagFieldNumber(userTag) == USER_LIST_USERS) {
+                            users.add(readUser(input));
+                        } else {
+                            input.skipField(userTag);
+                        }
+                    }
+                    input.popLimit(limit);
+                    response.setData(users);
+                }
+                case RESPONSE_NEXT_CURSOR -> response.setNextCursor(input.readString());
+                default -> input.skipField(tag);
+            }
+        }
+        return response;
+    }
+
+    private static int userSize(UserModel user) {
+        int size = 0;
+        if (user.getId() != null) {
+            size += CodedOutputStream.computeInt64Size(USER_ID, user.getId());
+        }
+        size += stringSize(USER_USERNAME, user.getUsername());
+        size += stringSize(USER_NAME, user.getName());
+        size += stringSize(USER_EMAIL, user.getEmail());
+        if (user.getVersion() != null) {
+            size += CodedOutputStream.computeInt64Size(USER_VERSION, user.getVersion());
+        }
+        return size;
+    }
+
+    private static void writeUser(CodedOutputStream output, UserModel user) throws IOException {
+        if (user.getId() != null) {
+            output.writeInt64(USER_ID, user.getId());
+        }
+        writeString(output, USER_USERNAME, user.getUsername());
+        writeString(output, USER_NAME, user.getName());
+        writeString(output, USER_EMAIL, user.getEmail());
+        if (user.getVersion() != null) {
+            output.writeInt64(USER_VERSION, user.getVersion());
+        }
+    }
+
+    private static UserModel readUser(CodedInputStream input) throws IOException {
+        UserModel user = new UserModel();
+        int limit = input.pushLimit(input.readRawVarint32());
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case USER_ID -> user.setId(input.readInt64());
+                case USER_USERNAME -> user.setUsername(input.readString());
+                case USER_NAME -> user.setName(input.readString());
+                case USER_EMAIL -> user.setEmail(input.readString());
+                case USER_VERSION -> user.setVersion(input.readInt64());
+                default -> input.skipField(tag);
+            }
+        }
+        input.popLimit(limit);
+        return user;
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null || value.isEmpty() ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            output.writeString(field, value);
+        }
+    }
+}
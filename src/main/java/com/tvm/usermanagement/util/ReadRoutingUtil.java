@@ -0,0 +1,48 @@
+package com.tvm.usermanagement.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override for read routing: while it is set, read-only transactions use the primary
+ * instead of a replica. Has no effect when no replicas are configured.
+ */
+public class ReadRoutingUtil {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadRoutingUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    /**
+     * Sends every read on this thread to the primary until {@link #clear()}; for request-scoped callers such as filters.
+     */
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * Runs the action with every read on this thread going to the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        }
+    }
+}
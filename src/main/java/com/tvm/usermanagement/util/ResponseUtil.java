@@ -1,6 +1,8 @@
 package com.tvm.usermanagement.util;
 
 import com.tvm.usermanagement.common.ApiResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -16,6 +18,23 @@ public class ResponseUtil {
         return new ResponseEntity<>(response, status);
     }
 
+    public static <T> ResponseEntity<ApiResponse<T>> createResponse(HttpStatus status, String message, int recordCount, T data, String nextCursor) {
+        ApiResponse<T> response = new ApiResponse<>(status.value(), message, recordCount, data, nextCursor);
+        return new ResponseEntity<>(response, status);
+    }
+
+    /**
+     * Adds an ETag and makes clients revalidate. A GET whose If-None-Match matches is answered with 304 before
+     * the body is serialized. The body format is negotiated, so caches must key on Accept as well.
+     */
+    public static <T> ResponseEntity<T> withETag(ResponseEntity<T> response, String eTag) {
+        return ResponseEntity.status(response.getStatusCode())
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(response.getBody());
+    }
+
     public static String getErrorMessage(BindingResult bindingResult) {
         return bindingResult.getAllErrors().get(0).getDefaultMessage();
     }
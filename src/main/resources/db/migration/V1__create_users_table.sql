@@ -0,0 +1,7 @@
+-- Baseline schema, matching what Hibernate generated for existing deployments
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255),
+    name     VARCHAR(255),
+    email    VARCHAR(255)
+);
@@ -0,0 +1,10 @@
+-- Move id generation from IDENTITY to a pooled sequence (allocation size 50, see UserModel.ID_ALLOCATION_SIZE).
+-- Existing ids are kept; ids are now always assigned by the application.
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+-- The pooled optimizer treats each nextval as the top of a block of 50 ids,
+-- so the first value handed out must leave the whole block above the current maximum.
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 50, false);
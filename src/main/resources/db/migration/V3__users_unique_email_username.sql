@@ -0,0 +1,4 @@
+-- Back UserService.checkUserExists with real constraints so concurrent creates cannot both succeed.
+-- Fails if the table already holds duplicates; those have to be resolved by hand first.
+ALTER TABLE users ADD CONSTRAINT uk_users_email UNIQUE (email);
+ALTER TABLE users ADD CONSTRAINT uk_users_username UNIQUE (username);
@@ -0,0 +1,6 @@
+-- Trigram indexes for GET /api/users/search: they serve both prefix and substring lower(column) LIKE patterns.
+-- pg_trgm ships with Postgres but creating the extension needs a role allowed to do so.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (lower(username) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
@@ -0,0 +1,2 @@
+-- Optimistic locking column for UserModel (@Version); existing rows start at 0.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,5 @@
+-- One (column, id) btree per sortable field, matching ORDER BY column, id in either direction, so offset and
+-- keyset pages of GET /api/users read the index in order instead of sorting the table. Ids use the primary key.
+CREATE INDEX IF NOT EXISTS idx_users_username_id ON users (username, id);
+CREATE INDEX IF NOT EXISTS idx_users_name_id ON users (name, id);
+CREATE INDEX IF NOT EXISTS idx_users_email_id ON users (email, id);
@@ -0,0 +1,21 @@
+-- Transactional outbox behind GET /api/users/changes. Writers insert rows in their own transaction with seq NULL;
+-- UserChangeFeed.publish numbers committed rows in id order under an advisory lock, so the feed sequence only grows
+-- and a row never becomes visible below a sequence number a consumer has already read past.
+CREATE TABLE IF NOT EXISTS user_changes (
+    id           BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    seq          BIGINT UNIQUE,
+    user_id      BIGINT NOT NULL,
+    change_type  VARCHAR(16) NOT NULL,
+    payload      JSONB,
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT now(),
+    published_at TIMESTAMPTZ
+);
+CREATE INDEX IF NOT EXISTS idx_user_changes_unpublished ON user_changes (id) WHERE seq IS NULL;
+-- Compaction looks for a later event of the same user
+CREATE INDEX IF NOT EXISTS idx_user_changes_user_seq ON user_changes (user_id, seq);
+
+-- Highest sequence number dropped by retention; cursors below it can no longer be resumed
+CREATE TABLE IF NOT EXISTS user_change_retention (
+    horizon BIGINT NOT NULL
+);
+INSERT INTO user_change_retention (horizon) SELECT 0 WHERE NOT EXISTS (SELECT 1 FROM user_change_retention);
@@ -0,0 +1,53 @@
+package com.tvm.usermanagement.benchmark;
+
+/**
+ * Copy of UserModel with the old IDENTITY id mapping, used as the "before" side of {@link UserInsertBenchmarkTest}.
+ * Mapped through benchmark/identity-user-orm.xml so that only the benchmark context sees it.
+ */
+public class IdentityUserRow {
+    private Long id;
+    private String username;
+    private String name;
+    private String email;
+
+    public IdentityUserRow() {
+    }
+
+    public IdentityUserRow(String username, String name, String email) {
+        this.username = username;
+        this.name = name;
+        this.email = email;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
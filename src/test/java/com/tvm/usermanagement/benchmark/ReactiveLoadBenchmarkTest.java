@@ -0,0 +1,134 @@
+package com.tvm.usermanagement.benchmark;
+
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the servlet application and the reactive (WebFlux + R2DBC) variant, each on its own embedded Postgres,
+ * and drives the same high fan-out mix of GET /api/users/{id} and keyset list pages at both. The users cache is
+ * disabled on the servlet side so both paths hit the database on every request. Logs throughput, p99 latency,
+ * errors and the peak number of platform threads the process needed.
+ * Run with {@code ./gradlew benchmarkTest}.
+ */
+@Tag("benchmark")
+public class ReactiveLoadBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveLoadBenchmarkTest.class);
+    private static final int CONCURRENCY = 2_000;
+    private static final int REQUESTS = 50_000;
+    private static final int SEED_USERS = 200;
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+
+    @Test
+    public void compareServletAndReactive() throws Exception {
+        Result servlet;
+        try (EmbeddedApplication application = EmbeddedApplication.start(
+                "server.port=0",
+                "user.cache.users.spec=maximumSize=0",
+                "user.cache.usersPagination.spec=maximumSize=0",
+                "user.cache.responses.enabled=false",
+                "user.cache.invalidation.enabled=false")) {
+            servlet = run(application.getPort());
+        }
+
+        Result reactive;
+        try (EmbeddedApplication application = EmbeddedApplication.startReactive(
+                "server.port=0",
+                "user.cache.invalidation.enabled=false")) {
+            reactive = run(application.getPort());
+        }
+
+        logger.info("Servlet + JPA:     {} req/s, p99 {} ms, {} errors, {} peak threads", servlet.throughput, servlet.p99Millis, servlet.errors, servlet.peakThreads);
+        logger.info("WebFlux + R2DBC:   {} req/s, p99 {} ms, {} errors, {} peak threads", reactive.throughput, reactive.p99Millis, reactive.errors, reactive.peakThreads);
+        assertTrue(servlet.throughput > 0 && reactive.throughput > 0);
+    }
+
+    private Result run(int port) throws Exception {
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            String baseUrl = "http://localhost:" + port + "/api/users";
+            long[] ids = new long[SEED_USERS];
+            for (int i = 0; i < SEED_USERS; i++) {
+                HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"load" + i + "\",\"name\":\"Load Test\",\"email\":\"load" + i + "@example.com\"}"))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                Matcher matcher = ID_PATTERN.matcher(created.body());
+                assertTrue(matcher.find(), "Could not create a benchmark user: " + created.body());
+                ids[i] = Long.parseLong(matcher.group(1));
+            }
+
+            HttpRequest[] requests = new HttpRequest[SEED_USERS + 1];
+            for (int i = 0; i < SEED_USERS; i++) {
+                requests[i] = HttpRequest.newBuilder(URI.create(baseUrl + "/" + ids[i])).GET().build();
+            }
+            requests[SEED_USERS] = HttpRequest.newBuilder(URI.create(baseUrl + "?mode=cursor&pageSize=20")).GET().build();
+
+            // Warm-up pass, then the measured pass
+            drive(client, requests, REQUESTS / 10);
+            return drive(client, requests, REQUESTS);
+        }
+    }
+
+    private Result drive(HttpClient client, HttpRequest[] mix, int requests) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        CountDownLatch done = new CountDownLatch(requests);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                int index = i;
+                // Every tenth request reads a list page, the rest read single users
+                HttpRequest request = i % 10 == 0 ? mix[mix.length - 1] : mix[i % (mix.length - 1)];
+                executor.submit(() -> {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - sent;
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(requests * 0.99) - 1];
+        return new Result(requests * 1_000_000_000L / elapsed, p99 / 1_000_000, errors.get(), threads.getPeakThreadCount());
+    }
+
+    private record Result(long throughput, long p99Millis, int errors, int peakThreads) {
+    }
+}
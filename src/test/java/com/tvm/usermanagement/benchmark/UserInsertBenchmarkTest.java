@@ -0,0 +1,97 @@
+package com.tvm.usermanagement.benchmark;
+
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares insert throughput of 10k users saved through IDENTITY ids (one INSERT and key read-back per row)
+ * against the pooled sequence mapping of UserModel (JDBC-batched INSERTs). Runs on an embedded Postgres, where
+ * a test-only migration adds the IDENTITY table next to the real schema. Run with {@code ./gradlew benchmarkTest}.
+ */
+@Tag("benchmark")
+public class UserInsertBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserInsertBenchmarkTest.class);
+    private static final int ROWS = 10_000;
+    private static final int ROUNDS = 3;
+
+    private UserRepository userRepository;
+    private EntityManager entityManager;
+
+    @Test
+    public void compareIdentityAndPooledSequenceInserts() throws Exception {
+        try (EmbeddedApplication application = EmbeddedApplication.start(
+                "server.port=0",
+                "user.cache.invalidation.enabled=false",
+                "spring.jpa.mapping-resources=benchmark/identity-user-orm.xml",
+                "spring.flyway.locations=classpath:db/migration,classpath:benchmark/migration")) {
+            userRepository = application.getBean(UserRepository.class);
+            entityManager = application.getBean(EntityManager.class);
+            compare(new TransactionTemplate(application.getBean(PlatformTransactionManager.class)));
+        }
+    }
+
+    private void compare(TransactionTemplate transactionTemplate) {
+        // Warm up both paths before measuring
+        insertWithIdentity(transactionTemplate, 1_000, "warmup");
+        insertWithSequence(transactionTemplate, 1_000, "warmup");
+
+        long identityNanos = Long.MAX_VALUE;
+        long sequenceNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            identityNanos = Math.min(identityNanos, insertWithIdentity(transactionTemplate, ROWS, "round" + round));
+            sequenceNanos = Math.min(sequenceNanos, insertWithSequence(transactionTemplate, ROWS, "round" + round));
+        }
+
+        logger.info("IDENTITY saveAll of {} users: {} ms ({} rows/s)", ROWS, identityNanos / 1_000_000, rowsPerSecond(identityNanos));
+        logger.info("Pooled sequence saveAll of {} users: {} ms ({} rows/s)", ROWS, sequenceNanos / 1_000_000, rowsPerSecond(sequenceNanos));
+        assertTrue(identityNanos > 0 && sequenceNanos > 0);
+    }
+
+    private long insertWithIdentity(TransactionTemplate transactionTemplate, int rows, String tag) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Same persist-per-entity loop that SimpleJpaRepository.saveAll runs
+            for (int i = 0; i < rows; i++) {
+                entityManager.persist(new IdentityUserRow("identity-" + tag + "-" + i, "Identity User", "identity-" + tag + "-" + i + "@example.com"));
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+
+        transactionTemplate.executeWithoutResult(status ->
+                entityManager.createQuery("delete from IdentityUserRow").executeUpdate());
+        return elapsed;
+    }
+
+    private long insertWithSequence(TransactionTemplate transactionTemplate, int rows, String tag) {
+        List<UserModel> users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            users.add(new UserModel("sequence-" + tag + "-" + i, "Sequence User", "sequence-" + tag + "-" + i + "@example.com"));
+        }
+
+        long start = System.nanoTime();
+        transactionTemplate.execute(status -> userRepository.saveAll(users));
+        long elapsed = System.nanoTime() - start;
+
+        // The embedded database holds only benchmark rows, so the whole table can go
+        userRepository.deleteAllInBatch();
+        return elapsed;
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000L / nanos;
+    }
+}
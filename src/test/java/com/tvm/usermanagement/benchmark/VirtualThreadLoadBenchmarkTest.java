@@ -0,0 +1,111 @@
+package com.tvm.usermanagement.benchmark;
+
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the application once on platform threads and once on virtual threads, each on its own embedded Postgres,
+ * and drives the same high-concurrency GET /api/users/{id} load at each. The users and response caches are
+ * disabled and the requests are spread over many users, so concurrent misses rarely share a single-flight load and
+ * nearly every request blocks on JDBC. Logs throughput, p99 latency and the share of requests shed with 503.
+ * Run with {@code ./gradlew benchmarkTest}.
+ */
+@Tag("benchmark")
+public class VirtualThreadLoadBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadBenchmarkTest.class);
+    private static final int CONCURRENCY = 2_000;
+    private static final int REQUESTS = 50_000;
+    // Far more users than requests in flight, so two concurrent requests seldom ask for the same id
+    private static final int SEED_USERS = 20_000;
+
+    @Test
+    public void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        logger.info("Platform threads: {} req/s, p99 {} ms, {} errors", platform.throughput, platform.p99Millis, platform.errors);
+        logger.info("Virtual threads:  {} req/s, p99 {} ms, {} errors", virtual.throughput, virtual.p99Millis, virtual.errors);
+        assertTrue(platform.throughput > 0 && virtual.throughput > 0);
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (EmbeddedApplication application = EmbeddedApplication.start(
+                "server.port=0",
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "user.cache.users.spec=maximumSize=0",
+                "user.cache.responses.enabled=false",
+                "user.cache.invalidation.enabled=false");
+             HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            application.getBean(JdbcTemplate.class).update("INSERT INTO users (id, username, name, email)"
+                    + " SELECT i, 'load' || i, 'Load Test', 'load' || i || '@example.com' FROM generate_series(1, ?) AS i", SEED_USERS);
+
+            String baseUrl = "http://localhost:" + application.getPort() + "/api/users/";
+            HttpRequest[] requests = new HttpRequest[SEED_USERS];
+            for (int i = 0; i < SEED_USERS; i++) {
+                requests[i] = HttpRequest.newBuilder(URI.create(baseUrl + (i + 1))).GET().build();
+            }
+
+            // Warm-up pass, then the measured pass
+            drive(client, requests, REQUESTS / 10);
+            return drive(client, requests, REQUESTS);
+        }
+    }
+
+    private Result drive(HttpClient client, HttpRequest[] users, int requests) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        CountDownLatch done = new CountDownLatch(requests);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                int index = i;
+                HttpRequest request = users[i % users.length];
+                executor.submit(() -> {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - sent;
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(requests * 0.99) - 1];
+        return new Result(requests * 1_000_000_000L / elapsed, p99 / 1_000_000, errors.get());
+    }
+
+    private record Result(long throughput, long p99Millis, int errors) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.tvm.usermanagement.cache;
+
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application nodes on one embedded database: a write on the first must evict the second node's caches
+ * through LISTEN/NOTIFY, and a malformed notification must not stop the second node from listening.
+ */
+public class PostgresCacheInvalidationBusTest {
+
+    private static final long USER_ID = 1;
+    private static final long SENTINEL_ID = 424242;
+
+    private static EmbeddedApplication first;
+    private static EmbeddedApplication second;
+    private static HttpClient client;
+    private static Cache secondUsers;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        first = EmbeddedApplication.start("server.port=0", "user.cache.invalidation.poll-timeout-ms=50");
+        second = EmbeddedApplication.startNode(first, "server.port=0", "user.cache.invalidation.poll-timeout-ms=50");
+        first.getBean(JdbcTemplate.class).update("INSERT INTO users (id, username, name, email) VALUES (?, 'shared', 'Shared', 'shared@example.com')", USER_ID);
+        client = HttpClient.newHttpClient();
+        secondUsers = second.getBean(CacheManager.class).getCache("users");
+
+        // The listener connects after startup and begins by clearing the caches; wait until it hears other nodes
+        awaitTrue(() -> {
+            secondUsers.put(SENTINEL_ID, new UserModel());
+            notifyFrom(first, "other-node:" + SENTINEL_ID);
+            sleep(100);
+            return secondUsers.get(SENTINEL_ID) == null;
+        });
+    }
+
+    @AfterAll
+    public static void stop() throws Exception {
+        client.close();
+        second.close();
+        first.close();
+    }
+
+    @Test
+    public void testWriteOnOneNodeEvictsTheOtherNodesCaches() throws Exception {
+        assertTrue(get(second, USER_ID).contains("\"name\":\"Shared\""));
+        assertNotNull(secondUsers.get(USER_ID));
+
+        HttpResponse<String> updated = client.send(HttpRequest.newBuilder(URI.create(baseUrl(first) + "/" + USER_ID))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"username\":\"shared\",\"name\":\"Renamed\",\"email\":\"shared@example.com\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, updated.statusCode());
+
+        awaitTrue(() -> secondUsers.get(USER_ID) == null);
+        assertTrue(get(second, USER_ID).contains("\"name\":\"Renamed\""));
+    }
+
+    @Test
+    public void testMalformedNotificationEvictsAllAndKeepsListening() {
+        secondUsers.put(SENTINEL_ID, new UserModel());
+        notifyFrom(first, "other-node:not-a-number");
+        // Its keys are unknown, so the node drops everything instead
+        awaitTrue(() -> secondUsers.get(SENTINEL_ID) == null);
+
+        secondUsers.put(SENTINEL_ID, new UserModel());
+        notifyFrom(first, "other-node:" + SENTINEL_ID);
+        awaitTrue(() -> secondUsers.get(SENTINEL_ID) == null);
+    }
+
+    private static void notifyFrom(EmbeddedApplication node, String payload) {
+        node.getBean(JdbcTemplate.class).queryForList("SELECT pg_notify(?, ?)", PostgresCacheInvalidationBus.CHANNEL, payload);
+    }
+
+    private static String get(EmbeddedApplication node, long id) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl(node) + "/" + id)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+
+    private static String baseUrl(EmbeddedApplication node) {
+        return "http://localhost:" + node.getPort() + "/api/users";
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the invalidation");
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tvm.usermanagement.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.tvm.usermanagement.common.ApiResponse;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import com.tvm.usermanagement.util.ProtobufUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Asks the real MVC configuration for each response format through {@code Accept} and decodes what comes back:
+ * the binary Jackson formats and protobuf on request, JSON for anything else it can serve, 406 for the rest.
+ */
+public class ContentNegotiationTest {
+
+    private static EmbeddedApplication application;
+    private static MockMvc mockMvc;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        application = EmbeddedApplication.start("server.port=0", "user.cache.invalidation.enabled=false");
+        application.getBean(JdbcTemplate.class).update("INSERT INTO users (id, username, name, email) VALUES"
+                + " (1, 'ann', 'Ann', 'ann@example.com'), (2, 'bob', 'Bob', 'bob@example.com')");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) application.getContext()).build();
+    }
+
+    @AfterAll
+    public static void stop() throws Exception {
+        application.close();
+    }
+
+    @Test
+    public void testCbor() throws Exception {
+        JsonNode response = new ObjectMapper(new CBORFactory()).readTree(fetch("/api/users/1", "application/cbor").getResponse().getContentAsByteArray());
+        assertEquals("ann", response.get("data").get("username").asText());
+    }
+
+    @Test
+    public void testSmile() throws Exception {
+        JsonNode response = new ObjectMapper(new SmileFactory()).readTree(fetch("/api/users/1", "application/x-jackson-smile").getResponse().getContentAsByteArray());
+        assertEquals("ann", response.get("data").get("username").asText());
+    }
+
+    @Test
+    public void testProtobuf() throws Exception {
+        ApiResponse<Object> user = ProtobufUtil.read(new ByteArrayInputStream(fetch("/api/users/1", ProtobufUtil.MEDIA_TYPE).getResponse().getContentAsByteArray()));
+        assertEquals(200, user.getStatus());
+        assertEquals("ann", ((UserModel) user.getData()).getUsername());
+
+        ApiResponse<Object> page = ProtobufUtil.read(new ByteArrayInputStream(fetch("/api/users?sortDir=asc", ProtobufUtil.MEDIA_TYPE).getResponse().getContentAsByteArray()));
+        assertEquals(List.of("ann", "bob"), ((List<?>) page.getData()).stream().map(row -> ((UserModel) row).getUsername()).toList());
+    }
+
+    @Test
+    public void testAnyOrNoAcceptGetsJson() throws Exception {
+        for (String accept : new String[]{"*/*", null}) {
+            MvcResult result = mockMvc.perform(accept != null ? get("/api/users/1").header("Accept", accept) : get("/api/users/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andReturn();
+            assertEquals("ann", new ObjectMapper().readTree(result.getResponse().getContentAsString()).get("data").get("username").asText());
+        }
+    }
+
+    @Test
+    public void testUnsupportedFormatsAre406() throws Exception {
+        mockMvc.perform(get("/api/users/1").header("Accept", "application/xml")).andExpect(status().isNotAcceptable());
+        // Sparse fieldsets are maps, which the protobuf contract has no message for
+        mockMvc.perform(get("/api/users/1?fields=username").header("Accept", ProtobufUtil.MEDIA_TYPE)).andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    public void testInvalidPagingIs400() throws Exception {
+        for (String url : new String[]{"/api/users?mode=cursor&pageSize=0", "/api/users?pageSize=0", "/api/users?offset=-1",
+                "/api/users?fields=username&mode=cursor&pageSize=0"}) {
+            mockMvc.perform(get(url)).andExpect(status().isBadRequest())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private static MvcResult fetch(String url, String accept) throws Exception {
+        return mockMvc.perform(get(url).header("Accept", accept))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(accept))
+                .andReturn();
+    }
+}
@@ -0,0 +1,194 @@
+package com.tvm.usermanagement.config;
+
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the application against two embedded Postgres instances, a primary and a stand-in replica that is migrated
+ * but never replicated to, so the instance that served a read is visible in the response.
+ */
+public class ReadReplicaRoutingTest {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+    private static final long REPLICA_ONLY_ID = 999_999;
+    private static final String SEED_SQL = "INSERT INTO users (id, username, name, email) VALUES"
+            + " (1, 'renamed', 'Old Name', 'renamed@example.com'), (2, 'removed', 'Removed', 'removed@example.com')";
+
+    @Test
+    public void routesReadsToReplicaAndFallsBackToPrimary() throws Exception {
+        EmbeddedPostgres replica = EmbeddedPostgres.builder().start();
+        boolean replicaRunning = true;
+        try {
+            String replicaUrl = replica.getJdbcUrl("postgres", "postgres");
+            Flyway.configure().dataSource(replicaUrl, "postgres", "").load().migrate();
+            try (Connection connection = DriverManager.getConnection(replicaUrl, "postgres", "");
+                 Statement statement = connection.createStatement()) {
+                statement.executeUpdate("INSERT INTO users (id, username, name, email) VALUES (" + REPLICA_ONLY_ID
+                        + ", 'replicaonly', 'Replica Only', 'replicaonly@example.com')");
+            }
+
+            try (EmbeddedApplication application = EmbeddedApplication.start(
+                    "server.port=0",
+                    "user.cache.users.spec=maximumSize=0",
+                    "user.cache.responses.enabled=false",
+                    "user.cache.invalidation.enabled=false",
+                    "user.datasource.replica.urls=" + replicaUrl,
+                    "user.datasource.replica.read-your-writes-ms=60000");
+                 HttpClient client = HttpClient.newHttpClient()) {
+                String baseUrl = "http://localhost:" + application.getPort() + "/api/users";
+
+                // Read-only lookups are served by the replica
+                assertEquals(200, get(client, baseUrl + "/" + REPLICA_ONLY_ID, null).statusCode());
+
+                // The write goes to the primary, which the replica never sees
+                HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"routed\",\"name\":\"Routed User\",\"email\":\"routed@example.com\"}"))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(201, created.statusCode());
+                Matcher matcher = ID_PATTERN.matcher(created.body());
+                assertTrue(matcher.find());
+                String createdUrl = baseUrl + "/" + matcher.group(1);
+                String cookie = created.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+                assertTrue(cookie.startsWith(ReadYourWritesFilter.COOKIE_NAME + "="));
+
+                // Without the cookie the read goes to the replica; with it the writer reads its own write from the primary
+                assertEquals(404, get(client, createdUrl, null).statusCode());
+                assertEquals(200, get(client, createdUrl, cookie).statusCode());
+
+                // With the replica gone, reads fall back to the primary
+                replica.close();
+                replicaRunning = false;
+                ReplicaRoutingDataSource routing = application.getBean(ReplicaRoutingDataSource.class);
+                routing.checkHealth();
+                assertEquals(0, routing.getHealthyReplicaCount());
+                assertEquals(200, get(client, createdUrl, null).statusCode());
+                assertEquals(404, get(client, baseUrl + "/" + REPLICA_ONLY_ID, null).statusCode());
+            }
+        } finally {
+            if (replicaRunning) {
+                replica.close();
+            }
+        }
+    }
+
+    @Test
+    public void evictsCachedReplicaReadsAgainOnceReplicasCatchUp() throws Exception {
+        EmbeddedPostgres replica = EmbeddedPostgres.builder().start();
+        try {
+            String replicaUrl = replica.getJdbcUrl("postgres", "postgres");
+            Flyway.configure().dataSource(replicaUrl, "postgres", "").load().migrate();
+            JdbcTemplate replicaJdbcTemplate = new JdbcTemplate(replica.getPostgresDatabase());
+            replicaJdbcTemplate.update(SEED_SQL);
+
+            // Every cache is on, with its default expiry
+            try (EmbeddedApplication application = EmbeddedApplication.start(
+                    "server.port=0",
+                    "user.cache.invalidation.enabled=false",
+                    "user.datasource.replica.urls=" + replicaUrl,
+                    "user.datasource.replica.max-lag-ms=1500",
+                    "user.datasource.replica.health-check-interval-ms=300",
+                    "user.datasource.replica.read-your-writes-ms=60000");
+                 HttpClient client = HttpClient.newHttpClient()) {
+                String baseUrl = "http://localhost:" + application.getPort() + "/api/users";
+                application.getBean(JdbcTemplate.class).update(SEED_SQL);
+
+                HttpResponse<String> updated = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/1"))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"username\":\"renamed\",\"name\":\"New Name\",\"email\":\"renamed@example.com\"}"))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, updated.statusCode());
+                HttpResponse<String> deleted = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/2")).DELETE().build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, deleted.statusCode());
+
+                // A replica that has not replayed the writes yet refills the caches they just evicted
+                assertTrue(get(client, baseUrl, null).body().contains("Old Name"));
+                assertEquals(200, get(client, baseUrl + "/2", null).statusCode());
+                replicaJdbcTemplate.update("UPDATE users SET username = 'renamed', name = 'New Name', email = 'renamed@example.com', version = version + 1 WHERE id = 1");
+                replicaJdbcTemplate.update("DELETE FROM users WHERE id = 2");
+                assertTrue(get(client, baseUrl, null).body().contains("Old Name"));
+                assertEquals(200, get(client, baseUrl + "/2", null).statusCode());
+
+                // Once the lag window has passed, the stale entries are gone and the caught-up replica is read again
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (get(client, baseUrl, null).body().contains("Old Name") || get(client, baseUrl + "/2", null).statusCode() != 404) {
+                    assertTrue(System.currentTimeMillis() < deadline, "Stale replica reads still cached after the lag window");
+                    Thread.sleep(50);
+                }
+                assertTrue(get(client, baseUrl, null).body().contains("New Name"));
+            }
+        } finally {
+            replica.close();
+        }
+    }
+
+    @Test
+    public void writerSkipsCachesTheLaggingReplicaRefilled() throws Exception {
+        EmbeddedPostgres replica = EmbeddedPostgres.builder().start();
+        try {
+            String replicaUrl = replica.getJdbcUrl("postgres", "postgres");
+            Flyway.configure().dataSource(replicaUrl, "postgres", "").load().migrate();
+            new JdbcTemplate(replica.getPostgresDatabase()).update(SEED_SQL);
+
+            // Every cache is on, and the replica stays behind for the whole test
+            try (EmbeddedApplication application = EmbeddedApplication.start(
+                    "server.port=0",
+                    "user.cache.invalidation.enabled=false",
+                    "user.datasource.replica.urls=" + replicaUrl,
+                    "user.datasource.replica.max-lag-ms=60000",
+                    "user.datasource.replica.read-your-writes-ms=60000");
+                 HttpClient client = HttpClient.newHttpClient()) {
+                String baseUrl = "http://localhost:" + application.getPort() + "/api/users";
+                application.getBean(JdbcTemplate.class).update(SEED_SQL);
+
+                HttpResponse<String> updated = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/1"))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"username\":\"renamed\",\"name\":\"New Name\",\"email\":\"renamed@example.com\"}"))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, updated.statusCode());
+                String cookie = updated.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+                assertEquals(200, client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/2")).DELETE().build(),
+                        HttpResponse.BodyHandlers.ofString()).statusCode());
+
+                // Other clients read the replica, which refills the user, page and response caches with the old state
+                for (int i = 0; i < 2; i++) {
+                    assertTrue(get(client, baseUrl, null).body().contains("Old Name"));
+                    assertEquals(200, get(client, baseUrl + "/2", null).statusCode());
+                }
+
+                // The writer still sees its own writes
+                String listing = get(client, baseUrl, cookie).body();
+                assertTrue(listing.contains("New Name"));
+                assertFalse(listing.contains("\"removed\""));
+                assertEquals(404, get(client, baseUrl + "/2", cookie).statusCode());
+                assertTrue(get(client, baseUrl + "/1", cookie).body().contains("New Name"));
+            }
+        } finally {
+            replica.close();
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, String url, String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,145 @@
+package com.tvm.usermanagement.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tvm.usermanagement.cache.ResponseBodyCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheFilterTest {
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private ResponseBodyCache responseBodyCache;
+    private ResponseCacheFilter filter;
+    private Runnable duringRender = () -> {
+    };
+
+    // Stands in for the controller and message converter
+    private final FilterChain chain = (request, response) -> {
+        renders.incrementAndGet();
+        duringRender.run();
+        response.setContentType("application/json");
+        ((HttpServletResponse) response).setHeader(HttpHeaders.ETAG, "\"u-1-0\"");
+        response.getOutputStream().write(("{\"render\":" + renders.get() + "}").getBytes(StandardCharsets.UTF_8));
+    };
+
+    @BeforeEach
+    public void init() {
+        init(Caffeine.newBuilder());
+    }
+
+    private void init(Caffeine<Object, Object> builder) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(ResponseBodyCache.CACHE_NAME, builder.build());
+        responseBodyCache = new ResponseBodyCache();
+        ReflectionTestUtils.setField(responseBodyCache, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(responseBodyCache, "maxEntryBytes", 1 << 20);
+        filter = new ResponseCacheFilter();
+        ReflectionTestUtils.setField(filter, "responseBodyCache", responseBodyCache);
+    }
+
+    @Test
+    public void testHitIsServedWithoutRendering() throws Exception {
+        MockHttpServletResponse miss = get("/api/users/1", "application/json", null);
+        MockHttpServletResponse hit = get("/api/users/1", "application/json", null);
+
+        assertEquals(1, renders.get());
+        assertEquals(200, hit.getStatus());
+        assertEquals(miss.getContentAsString(), hit.getContentAsString());
+        assertEquals("\"u-1-0\"", hit.getHeader(HttpHeaders.ETAG));
+        assertEquals("application/json", hit.getContentType());
+
+        // Another representation is another entry
+        get("/api/users/1", "application/cbor", null);
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    public void testHitAnswersMatchingIfNoneMatchWith304() throws Exception {
+        get("/api/users/1", "application/json", null);
+        MockHttpServletResponse notModified = get("/api/users/1", "application/json", "\"u-1-0\"");
+
+        assertEquals(1, renders.get());
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testEvictUsersDropsTheirEntriesAndListings() throws Exception {
+        get("/api/users/1", null, null);
+        get("/api/users/2", null, null);
+        get("/api/users", null, null);
+
+        responseBodyCache.evictUsers(List.of(1L));
+        get("/api/users/1", null, null);
+        get("/api/users/2", null, null);
+        get("/api/users", null, null);
+
+        // Users 1 and the listing were rendered again, user 2 came from the cache
+        assertEquals(5, renders.get());
+    }
+
+    @Test
+    public void testResponseRenderedAcrossAnEvictionIsNotStored() throws Exception {
+        duringRender = () -> responseBodyCache.evictUsers(List.of(1L));
+        get("/api/users/1", null, null);
+        duringRender = () -> {
+        };
+        get("/api/users/1", null, null);
+
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    public void testListingsExpireBeforeSingleUsers() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        init(Caffeine.newBuilder().ticker(nanos::get).expireAfter(ResponseBodyCache.expiry(600_000, 30_000)));
+        get("/api/users/1", null, null);
+        get("/api/users", null, null);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        get("/api/users/1", null, null);
+        get("/api/users", null, null);
+        // Only the listing was rendered again
+        assertEquals(3, renders.get());
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        get("/api/users/1", null, null);
+        assertEquals(4, renders.get());
+    }
+
+    @Test
+    public void testOtherRoutesAreNotCached() throws Exception {
+        get("/api/users/search", null, null);
+        get("/api/users/search", null, null);
+
+        assertEquals(2, renders.get());
+    }
+
+    private MockHttpServletResponse get(String uri, String accept, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,304 @@
+package com.tvm.usermanagement.loadtest;
+
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-model load test for /api/users. Boots the application against an embedded Postgres, seeds users through
+ * the bulk import endpoint, then issues a weighted mix of create, get-by-id, list, update and delete requests at a
+ * fixed arrival rate over real HTTP. Latency is measured from each request's scheduled start, so a stalled server
+ * shows up in the percentiles instead of silently lowering the request rate.
+ * Run with {@code ./gradlew loadTest -Ploadtest.rate=1000 -Ploadtest.duration=60 -Ploadtest.users=100000}.
+ */
+public class UserLoadTest {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    enum Operation {
+        CREATE, GET_BY_ID, LIST, UPDATE, DELETE
+    }
+
+    private final int seedUsers = Integer.getInteger("loadtest.users", 10_000);
+    private final int ratePerSecond = Integer.getInteger("loadtest.rate", 500);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration", 60);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+    private final Path reportPath = Path.of(System.getProperty("loadtest.report", "build/reports/loadtest/report.txt"));
+    // Percentage weights, in Operation order
+    private final int[] weights = parseWeights(System.getProperty("loadtest.mix", "10,50,25,10,5"));
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final IdPool ids = new IdPool();
+    private final AtomicLong uniqueSuffix = new AtomicLong();
+
+    private HttpClient client;
+    private String baseUrl;
+
+    public static void main(String[] args) throws Exception {
+        new UserLoadTest().run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        try (EmbeddedApplication application = EmbeddedApplication.start(
+                "server.port=0", "user.cache.invalidation.enabled=false", "logging.level.com.tvm=WARN");
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            client = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(5)).build();
+            baseUrl = "http://localhost:" + application.getPort() + "/api/users";
+
+            resetRecorders();
+            seed();
+            System.out.printf("Seeded %d users, warming up for %d s%n", ids.size(), warmupSeconds);
+            drive(executor, warmupSeconds);
+
+            resetRecorders();
+            System.out.printf("Running %d req/s for %d s%n", ratePerSecond, durationSeconds);
+            long start = System.nanoTime();
+            drive(executor, durationSeconds);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            String report = report(elapsedSeconds);
+            System.out.print(report);
+            Files.createDirectories(reportPath.toAbsolutePath().getParent());
+            Files.writeString(reportPath, report);
+            System.out.println("Report written to " + reportPath.toAbsolutePath());
+        }
+    }
+
+    private void seed() throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < seedUsers; i++) {
+            body.append("{\"username\":\"seed").append(i).append("\",\"name\":\"Seed User ").append(i)
+                    .append("\",\"email\":\"seed").append(i).append("@example.com\"}\n");
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ID_PATTERN.matcher(response.body());
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+    }
+
+    // Schedules requests at fixed intervals regardless of how fast earlier ones complete
+    private void drive(ExecutorService executor, int seconds) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long total = (long) ratePerSecond * seconds;
+        long start = System.nanoTime();
+        List<Future<?>> pending = new ArrayList<>();
+        for (long i = 0; i < total; i++) {
+            long intendedStart = start + i * interval;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = pick();
+            pending.add(executor.submit(() -> execute(operation, intendedStart)));
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (Exception ignored) {
+                // Failures are already counted per operation
+            }
+        }
+    }
+
+    private void execute(Operation operation, long intendedStart) {
+        boolean ok;
+        try {
+            ok = switch (operation) {
+                case CREATE -> create();
+                case GET_BY_ID -> getById();
+                case LIST -> send(HttpRequest.newBuilder(URI.create(baseUrl + "?offset="
+                        + ThreadLocalRandom.current().nextInt(10) + "&pageSize=20")).GET().build()) == 200;
+                case UPDATE -> update();
+                case DELETE -> delete();
+            };
+        } catch (Exception e) {
+            ok = false;
+        }
+        latencies.get(operation).recordValue(Math.min(System.nanoTime() - intendedStart, HIGHEST_TRACKABLE_NANOS));
+        if (!ok) {
+            errors.get(operation).incrementAndGet();
+        }
+    }
+
+    private boolean create() throws IOException, InterruptedException {
+        long n = uniqueSuffix.incrementAndGet();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(userJson("load" + n, "load" + n + "@example.com")))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ID_PATTERN.matcher(response.body());
+        if (response.statusCode() == 201 && matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+            return true;
+        }
+        return false;
+    }
+
+    private boolean getById() throws IOException, InterruptedException {
+        Long id = ids.random();
+        return isFound(id, send(HttpRequest.newBuilder(userUri(id)).GET().build()));
+    }
+
+    private boolean update() throws IOException, InterruptedException {
+        long n = uniqueSuffix.incrementAndGet();
+        Long id = ids.random();
+        return isFound(id, send(HttpRequest.newBuilder(userUri(id))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(userJson("renamed" + n, "renamed" + n + "@example.com")))
+                .build()));
+    }
+
+    // A concurrent delete may take the id between picking it and the request landing; that 404 is expected
+    private boolean isFound(Long id, int status) {
+        return status == 200 || status == 404 && ids.isRemoved(id);
+    }
+
+    private boolean delete() throws IOException, InterruptedException {
+        Long id = ids.removeRandom();
+        return id != null && send(HttpRequest.newBuilder(userUri(id)).DELETE().build()) == 200;
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private URI userUri(Long id) {
+        return URI.create(baseUrl + "/" + id);
+    }
+
+    private static String userJson(String username, String email) {
+        return "{\"username\":\"" + username + "\",\"name\":\"Load Test\",\"email\":\"" + email + "\"}";
+    }
+
+    private Operation pick() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        int cumulative = 0;
+        for (Operation operation : Operation.values()) {
+            cumulative += weights[operation.ordinal()];
+            if (roll < cumulative) {
+                return operation;
+            }
+        }
+        return Operation.GET_BY_ID;
+    }
+
+    private void resetRecorders() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    private String report(double elapsedSeconds) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Load test: %d req/s target, %.1f s, %d seeded users%n", ratePerSecond, elapsedSeconds, seedUsers));
+        report.append(String.format(Locale.ROOT, "%-10s %10s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long allErrors = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            long failed = errors.get(operation).get();
+            all.add(histogram);
+            allErrors += failed;
+            appendRow(report, operation.name(), histogram, failed, elapsedSeconds);
+        }
+        appendRow(report, "ALL", all, allErrors, elapsedSeconds);
+        return report.toString();
+    }
+
+    private static void appendRow(StringBuilder report, String name, Histogram histogram, long failed, double elapsedSeconds) {
+        long count = histogram.getTotalCount();
+        report.append(String.format(Locale.ROOT, "%-10s %10d %10.1f %7.2f%% %10.2f %10.2f %10.2f %10.2f%n",
+                name, count, count / elapsedSeconds, count == 0 ? 0.0 : 100.0 * failed / count,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static int[] parseWeights(String mix) {
+        String[] parts = mix.split(",");
+        int[] parsed = new int[Operation.values().length];
+        int sum = 0;
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = Integer.parseInt(parts[i].trim());
+            sum += parsed[i];
+        }
+        if (sum != 100) {
+            throw new IllegalArgumentException("loadtest.mix weights must add up to 100, got " + sum);
+        }
+        return parsed;
+    }
+
+    /**
+     * Ids of users known to exist, for picking request targets, and of those handed out for deletion since.
+     */
+    private static class IdPool {
+        private final List<Long> ids = new ArrayList<>();
+        private final Set<Long> removed = new HashSet<>();
+
+        synchronized void add(Long id) {
+            ids.add(id);
+        }
+
+        synchronized int size() {
+            return ids.size();
+        }
+
+        synchronized Long random() {
+            return ids.isEmpty() ? -1L : ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+
+        // Swap-remove so deletes stay O(1)
+        synchronized Long removeRandom() {
+            if (ids.isEmpty()) {
+                return null;
+            }
+            int index = ThreadLocalRandom.current().nextInt(ids.size());
+            Long id = ids.get(index);
+            ids.set(index, ids.get(ids.size() - 1));
+            ids.remove(ids.size() - 1);
+            removed.add(id);
+            return id;
+        }
+
+        synchronized boolean isRemoved(Long id) {
+            return removed.contains(id);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.tvm.usermanagement.metrics;
+
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends requests with known statement counts and reads the per-request statement metrics back, covering both
+ * a Hibernate path and a JdbcTemplate path.
+ */
+public class StatementMetricsInterceptorTest {
+
+    private static EmbeddedApplication application;
+    private static HttpClient client;
+    private static MeterRegistry meterRegistry;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        application = EmbeddedApplication.start(
+                "server.port=0",
+                "user.cache.users.spec=maximumSize=0",
+                "user.cache.responses.enabled=false",
+                "user.metrics.n-plus-one-threshold=2");
+        application.getBean(JdbcTemplate.class).update("INSERT INTO users (id, username, name, email)"
+                + " SELECT i, 'user' || i, 'Name ' || i, 'user' || i || '@example.com' FROM generate_series(1, 10) AS i");
+        client = HttpClient.newHttpClient();
+        meterRegistry = application.getBean(MeterRegistry.class);
+    }
+
+    @AfterAll
+    public static void stop() throws Exception {
+        client.close();
+        application.close();
+    }
+
+    @Test
+    public void testLookupByIdRunsOneStatement() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/1")).GET());
+        assertEquals(200, response.statusCode());
+
+        DistributionSummary statements = statements("GET", "/api/users/{id}");
+        assertEquals(1, statements.count());
+        assertEquals(1, statements.totalAmount());
+        assertNull(meterRegistry.find("http.server.requests.n_plus_one").tag("uri", "/api/users/{id}").counter());
+    }
+
+    @Test
+    public void testJdbcTemplateStatementsAreCounted() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/bulk-delete"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("[5,6,7]")));
+        assertEquals(200, response.statusCode());
+
+        // The DELETE ... RETURNING id, the outbox insert and the cache invalidation NOTIFY all go through JdbcTemplate
+        DistributionSummary statements = statements("POST", "/api/users/bulk-delete");
+        assertEquals(1, statements.count());
+        assertEquals(3, statements.totalAmount());
+        Counter nPlusOne = meterRegistry.find("http.server.requests.n_plus_one").tag("uri", "/api/users/bulk-delete").counter();
+        assertNotNull(nPlusOne);
+        assertEquals(1, nPlusOne.count());
+    }
+
+    private static DistributionSummary statements(String method, String uri) {
+        DistributionSummary summary = meterRegistry.find("http.server.requests.statements").tag("method", method).tag("uri", uri).summary();
+        assertNotNull(summary, () -> "no statement metrics for " + method + " " + uri);
+        return summary;
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + application.getPort() + "/api/users" + path);
+    }
+}
@@ -0,0 +1,186 @@
+package com.tvm.usermanagement.reactive;
+
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the WebFlux + R2DBC variant over HTTP: CRUD through the ApiResponse envelope, the versions the database
+ * assigns, and the mapping of bad input and missing users to 400, 404 and 409.
+ */
+public class ReactiveUserControllerTest {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static EmbeddedApplication application;
+    private static WebTestClient client;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        application = EmbeddedApplication.startReactive("server.port=0", "user.cache.invalidation.enabled=false");
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + application.getPort() + "/api/users").build();
+    }
+
+    @AfterAll
+    public static void stop() throws Exception {
+        application.close();
+    }
+
+    @Test
+    public void testCreateReadUpdateDelete() {
+        long id = create("crud", "crud@example.com");
+
+        client.get().uri("/{id}", id).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.username").isEqualTo("crud")
+                .jsonPath("$.data.version").isEqualTo(0);
+
+        client.put().uri("/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "crud", "name", "Renamed", "email", "crud@example.com"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.name").isEqualTo("Renamed")
+                .jsonPath("$.data.version").isEqualTo(1);
+
+        client.delete().uri("/{id}", id).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.id").isEqualTo(id)
+                .jsonPath("$.data.name").isEqualTo("Renamed");
+
+        client.get().uri("/{id}", id).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testCreateReturnsTheStoredRow() {
+        // The version comes from the database, not from the request body
+        client.post().uri("")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "stored", "name", "Stored", "email", "stored@example.com", "version", 7))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.data.id").isNumber()
+                .jsonPath("$.data.version").isEqualTo(0);
+    }
+
+    @Test
+    public void testEachUpdateBumpsTheVersion() {
+        long id = create("versioned", "versioned@example.com");
+        for (int version = 1; version <= 3; version++) {
+            client.put().uri("/{id}", id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(Map.of("username", "versioned", "name", "Version " + version, "email", "versioned@example.com"))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody().jsonPath("$.data.version").isEqualTo(version);
+        }
+        client.get().uri("/{id}", id).exchange()
+                .expectBody().jsonPath("$.data.version").isEqualTo(3);
+    }
+
+    @Test
+    public void testMissingUsersAre404() {
+        client.get().uri("/{id}", 999_999).exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.status").isEqualTo(404);
+        client.put().uri("/{id}", 999_999)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "ghost", "name", "Ghost", "email", "ghost@example.com"))
+                .exchange()
+                .expectStatus().isNotFound();
+        client.delete().uri("/{id}", 999_999).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testConcurrentDeletesRecordOneChange() {
+        long id = create("racing", "racing@example.com");
+        WebClient webClient = WebClient.create("http://localhost:" + application.getPort() + "/api/users");
+
+        List<Integer> statuses = Flux.range(0, 8)
+                .flatMap(i -> webClient.delete().uri("/{id}", id).exchangeToMono(response -> Mono.just(response.statusCode().value())))
+                .collectList().block();
+
+        assertNotNull(statuses);
+        assertEquals(1, statuses.stream().filter(status -> status == 200).count());
+        assertEquals(7, statuses.stream().filter(status -> status == 404).count());
+        assertEquals(1L, application.getBean(DatabaseClient.class)
+                .sql("SELECT count(*) FROM user_changes WHERE user_id = :id AND change_type = :type")
+                .bind("id", id)
+                .bind("type", UserChange.DELETED)
+                .map(row -> row.get(0, Long.class))
+                .one().block());
+    }
+
+    @Test
+    public void testInvalidInputIs400() {
+        client.post().uri("")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "noemail", "name", "No Email"))
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("?sortBy=password").exchange().expectStatus().isBadRequest();
+        client.get().uri("?mode=cursor&cursor=garbage").exchange().expectStatus().isBadRequest();
+        client.get().uri("?mode=cursor&pageSize=0").exchange().expectStatus().isBadRequest();
+        client.get().uri("?pageSize=0").exchange().expectStatus().isBadRequest();
+        client.get().uri("?offset=-1").exchange().expectStatus().isBadRequest();
+        client.get().uri("/search?q=a&field=password").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testStreamRejectsAnUnknownSortBeforeStreaming() {
+        client.get().uri("?sortBy=password").accept(NDJSON).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").value(message -> assertTrue(message.toString().contains("password")));
+    }
+
+    @Test
+    public void testStreamReturnsUsersInSortOrder() {
+        create("stream-b", "stream-b@example.com");
+        create("stream-a", "stream-a@example.com");
+
+        List<Map> users = client.get().uri("?sortBy=username&sortDir=asc").accept(NDJSON).exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class).getResponseBody().collectList().block();
+        assertNotNull(users);
+        List<String> usernames = users.stream().map(user -> (String) user.get("username")).filter(name -> name.startsWith("stream-")).toList();
+        assertEquals(List.of("stream-a", "stream-b"), usernames);
+    }
+
+    @Test
+    public void testDuplicateEmailIs409() {
+        create("first", "taken@example.com");
+        client.post().uri("")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "second", "name", "Second", "email", "taken@example.com"))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    private static long create(String username, String email) {
+        Map<?, ?> response = client.post().uri("")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", username, "name", "Name of " + username, "email", email))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class).returnResult().getResponseBody();
+        assertNotNull(response);
+        return ((Number) ((Map<?, ?>) response.get("data")).get("id")).longValue();
+    }
+}
@@ -0,0 +1,169 @@
+package com.tvm.usermanagement.repository;
+
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.common.UserSortField;
+import com.tvm.usermanagement.service.UserService;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN for every sortable field and direction on a migrated, seeded table, with the SQL the repository
+ * builds, and fails if any plan sorts the table instead of walking a (field, id) index. Offset pages are read
+ * through the running application, and the SQL Hibernate generated for them is captured and explained.
+ */
+public class UserSortPlanTest {
+
+    private static final int ROWS = 200_000;
+    private static final Pattern PARAMETER = Pattern.compile(":(lastSortKey|lastId|limit)");
+    // Hibernate's pagination placeholders and the keyword each follows
+    private static final Pattern PAGING_PARAMETER = Pattern.compile("\\b(offset|limit|first|next) \\?");
+    private static final int PAGE = 100;
+    private static final int PAGE_SIZE = 10;
+
+    private static EmbeddedApplication application;
+    private static Connection connection;
+
+    @BeforeAll
+    public static void seed() throws Exception {
+        application = EmbeddedApplication.start(
+                "server.port=0",
+                "user.cache.usersPagination.spec=maximumSize=0",
+                "user.cache.invalidation.enabled=false",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector=" + CapturingStatementInspector.class.getName());
+        connection = application.getBean(DataSource.class).getConnection();
+        try (Statement statement = connection.createStatement()) {
+            // Names repeat and none of the columns follow id order, as in a real table
+            statement.executeUpdate("INSERT INTO users (id, username, name, email, version)"
+                    + " SELECT i, 'user' || md5(i::text), 'Name ' || (i * 7919 % 5000), md5(i::text) || '@example.com', 0"
+                    + " FROM generate_series(1, " + ROWS + ") AS i");
+            statement.execute("ANALYZE users");
+        }
+    }
+
+    @AfterAll
+    public static void stop() throws Exception {
+        connection.close();
+        application.close();
+    }
+
+    @Test
+    public void keysetPagesReadAnIndexInOrder() throws SQLException {
+        for (UserSortField field : UserSortField.values()) {
+            for (boolean ascending : new boolean[]{false, true}) {
+                UserSort sort = new UserSort(field, ascending);
+                Object[] middle = middleRow(field);
+                assertKeysetIndexOrdered(sort, UserRepositoryCustomImpl.keysetSql("*", sort, false), null, null, 11);
+                assertKeysetIndexOrdered(sort, UserRepositoryCustomImpl.keysetSql("*", sort, true), middle[0], (Long) middle[1], 11);
+            }
+        }
+    }
+
+    @Test
+    public void offsetPagesReadAnIndexInOrder() throws SQLException {
+        UserService userService = application.getBean(UserService.class);
+        for (UserSortField field : UserSortField.values()) {
+            for (boolean ascending : new boolean[]{false, true}) {
+                UserSort sort = new UserSort(field, ascending);
+                List<String> statements = CapturingStatementInspector.capture(() -> userService.getAllUsersByPagination(PAGE, PAGE_SIZE, sort));
+                assertEquals(1, statements.size(), () -> sort + " ran " + statements);
+                String sql = statements.get(0);
+
+                // A Slice reads one row more than the page to find out whether another page follows
+                List<Object> values = new ArrayList<>();
+                Matcher matcher = PAGING_PARAMETER.matcher(sql.toLowerCase(Locale.ROOT));
+                while (matcher.find()) {
+                    values.add("offset".equals(matcher.group(1)) ? PAGE * PAGE_SIZE : PAGE_SIZE + 1);
+                }
+                assertEquals(sql.chars().filter(c -> c == '?').count(), values.size(), () -> "unexpected parameters in " + sql);
+                assertIndexOrdered(sort, sql, values);
+            }
+        }
+    }
+
+    private static Object[] middleRow(UserSortField field) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet row = statement.executeQuery("SELECT " + field.getColumn() + ", id FROM users WHERE id = " + ROWS / 2)) {
+            assertTrue(row.next());
+            return new Object[]{row.getObject(1), row.getLong(2)};
+        }
+    }
+
+    private static void assertKeysetIndexOrdered(UserSort sort, String sql, Object lastSortKey, Long lastId, int limit) throws SQLException {
+        // Named parameters become JDBC placeholders, bound in the order they appear
+        List<Object> values = new ArrayList<>();
+        Matcher matcher = PARAMETER.matcher(sql);
+        StringBuilder jdbcSql = new StringBuilder();
+        while (matcher.find()) {
+            values.add(switch (matcher.group(1)) {
+                case "lastSortKey" -> lastSortKey;
+                case "lastId" -> lastId;
+                default -> limit;
+            });
+            matcher.appendReplacement(jdbcSql, "?");
+        }
+        matcher.appendTail(jdbcSql);
+        assertIndexOrdered(sort, jdbcSql.toString(), values);
+    }
+
+    private static void assertIndexOrdered(UserSort sort, String sql, List<Object> values) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            try (ResultSet lines = statement.executeQuery()) {
+                while (lines.next()) {
+                    plan.append(lines.getString(1)).append('\n');
+                }
+            }
+        }
+        // Covers Sort and Incremental Sort nodes alike
+        assertFalse(plan.toString().contains("Sort"), () -> sort + " sorts: " + sql + "\n" + plan);
+        assertTrue(plan.toString().contains("Index Scan"), () -> sort + " does not use an index: " + sql + "\n" + plan);
+    }
+
+    /**
+     * Records the SQL Hibernate prepares on the calling thread while {@link #capture} runs, leaving it unchanged.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        static List<String> capture(Runnable action) {
+            List<String> statements = new ArrayList<>();
+            CAPTURED.set(statements);
+            try {
+                action.run();
+            } finally {
+                CAPTURED.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = CAPTURED.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
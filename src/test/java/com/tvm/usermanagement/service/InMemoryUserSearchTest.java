@@ -0,0 +1,82 @@
+package com.tvm.usermanagement.service;
+
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InMemoryUserSearchTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private InMemoryUserSearch userSearch;
+
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        userSearch.setTransactionManager(transactionManager);
+        // Every tenth user is a "smith"; the rest share no trigram with the queries below
+        when(userRepository.streamAllBy()).thenReturn(LongStream.rangeClosed(1, 100).mapToObj(id -> user(id,
+                id % 10 == 0 ? "smith" + id : "user" + id, "Name " + id, "user" + id + "@example.com")));
+        userSearch.build();
+    }
+
+    @Test
+    public void testFindReturnsTrigramMatchesNewestFirst() {
+        List<UserModel> page = userSearch.find("smith", UserSearchField.USERNAME, false, null, 3);
+
+        assertEquals(List.of(100L, 90L, 80L), ids(page));
+    }
+
+    @Test
+    public void testFindContinuesAfterTheCursor() {
+        List<UserModel> page = userSearch.find("smith", UserSearchField.USERNAME, false, 80L, 3);
+
+        assertEquals(List.of(70L, 60L, 50L), ids(page));
+        assertEquals(List.of(10L), ids(userSearch.find("smith", UserSearchField.USERNAME, false, 20L, 3)));
+        assertEquals(List.of(), userSearch.find("smith", UserSearchField.USERNAME, false, 10L, 3));
+    }
+
+    @Test
+    public void testCandidatesAreVerifiedAgainstTheField() {
+        // "smi" is a trigram of every smith, but none of them has it in the name
+        assertEquals(List.of(), userSearch.find("smi", UserSearchField.NAME, false, null, 10));
+        assertEquals(List.of(100L, 90L), ids(userSearch.find("smi", UserSearchField.USERNAME, true, null, 2)));
+    }
+
+    @Test
+    public void testUnknownTrigramFindsNothing() {
+        assertEquals(List.of(), userSearch.find("zzzz", UserSearchField.ANY, false, null, 10));
+    }
+
+    @Test
+    public void testShortQueriesScanEveryUser() {
+        assertEquals(List.of(99L, 98L), ids(userSearch.find("9", UserSearchField.USERNAME, false, 100L, 2)));
+    }
+
+    private static UserModel user(long id, String username, String name, String email) {
+        UserModel user = new UserModel(username, name, email);
+        user.setId(id);
+        return user;
+    }
+
+    private static List<Long> ids(List<UserModel> users) {
+        return users.stream().map(UserModel::getId).toList();
+    }
+}
@@ -0,0 +1,188 @@
+package com.tvm.usermanagement.service;
+
+import com.tvm.usermanagement.common.BulkItemResult;
+import com.tvm.usermanagement.model.UserModel;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs bulk updates and deletes against a migrated embedded database. Each test seeds its own block of ids,
+ * so the tests do not see each other's rows.
+ */
+public class UserBulkServiceTest {
+
+    private static EmbeddedApplication application;
+    private static UserBulkService userBulkService;
+    private static UserService userService;
+    private static UserCounter userCounter;
+    private static Cache usersCache;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        application = EmbeddedApplication.start("server.port=0", "user.cache.invalidation.enabled=false");
+        userBulkService = application.getBean(UserBulkService.class);
+        userService = application.getBean(UserService.class);
+        userCounter = application.getBean(UserCounter.class);
+        usersCache = application.getBean(CacheManager.class).getCache("users");
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    public static void stop() throws Exception {
+        application.close();
+    }
+
+    @Test
+    public void testUpdateReportsAnOutcomePerEntryInRequestOrder() {
+        seed(101, 102, 103);
+        long changesBefore = changeCount();
+
+        List<BulkItemResult> results = userBulkService.updateUsers(List.of(
+                user(101L, "renamed101", "renamed101@example.com"),
+                user(199L, "ghost", "ghost@example.com"),
+                user(null, "noid", "noid@example.com"),
+                user(102L, "renamed102", "not-an-email"),
+                user(103L, "renamed103", "renamed103@example.com")));
+
+        assertEquals(List.of(BulkItemResult.UPDATED, BulkItemResult.NOT_FOUND, BulkItemResult.FAILED,
+                BulkItemResult.FAILED, BulkItemResult.UPDATED), statuses(results));
+        assertEquals(Arrays.asList(101L, 199L, null, 102L, 103L), results.stream().map(BulkItemResult::getId).toList());
+        assertEquals("id", results.get(2).getField());
+        assertEquals("email", results.get(3).getField());
+
+        assertEquals("renamed101", usernameOf(101));
+        assertEquals("user102", usernameOf(102));
+        assertEquals("renamed103", usernameOf(103));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT version FROM users WHERE id = 101", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT version FROM users WHERE id = 102", Long.class));
+        // Only the rows the batch changed go to the outbox
+        assertEquals(changesBefore + 2, changeCount());
+    }
+
+    @Test
+    public void testDuplicatesInsideTheRequestAreRejected() {
+        seed(201, 202, 203, 204);
+
+        List<BulkItemResult> results = userBulkService.updateUsers(List.of(
+                user(201L, "first201", "first201@example.com"),
+                user(201L, "again201", "again201@example.com"),
+                user(202L, "first202", "first201@example.com"),
+                user(203L, "first201", "other203@example.com"),
+                user(204L, "first204", "first204@example.com")));
+
+        assertEquals(List.of(BulkItemResult.UPDATED, BulkItemResult.FAILED, BulkItemResult.FAILED,
+                BulkItemResult.FAILED, BulkItemResult.UPDATED), statuses(results));
+        assertEquals("id", results.get(1).getField());
+        assertEquals("email", results.get(2).getField());
+        assertEquals("username", results.get(3).getField());
+        assertTrue(results.get(1).getMessage().contains("more than once"));
+        assertEquals("first201", usernameOf(201));
+        assertEquals("user202", usernameOf(202));
+    }
+
+    @Test
+    public void testRejectedEntryDoesNotClaimItsOtherValues() {
+        seed(601, 602, 603);
+
+        List<BulkItemResult> results = userBulkService.updateUsers(List.of(
+                user(601L, "claimer601", "claimer601@example.com"),
+                user(602L, "claimer601", "unclaimed@example.com"),
+                user(603L, "latecomer603", "unclaimed@example.com")));
+
+        assertEquals(List.of(BulkItemResult.UPDATED, BulkItemResult.FAILED, BulkItemResult.UPDATED), statuses(results));
+        assertEquals("username", results.get(1).getField());
+        assertEquals("latecomer603", usernameOf(603));
+    }
+
+    @Test
+    public void testValuesHeldByOtherUsersAreRejectedButOwnValuesAreKept() {
+        seed(301, 302, 303, 304);
+
+        List<BulkItemResult> results = userBulkService.updateUsers(List.of(
+                user(301L, "user301", "user304@example.com"),
+                user(302L, "user304", "fresh302@example.com"),
+                // Keeps its own username and email and only changes the name
+                user(303L, "user303", "user303@example.com")));
+
+        assertEquals(List.of(BulkItemResult.FAILED, BulkItemResult.FAILED, BulkItemResult.UPDATED), statuses(results));
+        assertEquals("email", results.get(0).getField());
+        assertTrue(results.get(0).getMessage().contains("already exists"));
+        assertEquals("username", results.get(1).getField());
+        assertEquals("Bulk user303", jdbcTemplate.queryForObject("SELECT name FROM users WHERE id = 303", String.class));
+        assertEquals("user301@example.com", jdbcTemplate.queryForObject("SELECT email FROM users WHERE id = 301", String.class));
+    }
+
+    @Test
+    public void testDeleteReportsDeletedAndMissingIdsOnce() {
+        seed(401, 402, 403);
+        long countBefore = userCounter.get();
+        long changesBefore = changeCount();
+
+        List<BulkItemResult> results = userBulkService.deleteUsers(List.of(401L, 499L, 403L, 401L));
+
+        assertEquals(List.of(401L, 499L, 403L), results.stream().map(BulkItemResult::getId).toList());
+        assertEquals(List.of(BulkItemResult.DELETED, BulkItemResult.NOT_FOUND, BulkItemResult.DELETED), statuses(results));
+        assertEquals(List.of(402L), jdbcTemplate.queryForList("SELECT id FROM users WHERE id BETWEEN 400 AND 499", Long.class));
+        assertEquals(countBefore - 2, userCounter.get());
+        assertEquals(changesBefore + 2, changeCount());
+
+        // Deleting them again finds nothing, so the count stays put
+        results = userBulkService.deleteUsers(List.of(401L, 403L));
+        assertEquals(List.of(BulkItemResult.NOT_FOUND, BulkItemResult.NOT_FOUND), statuses(results));
+        assertEquals(countBefore - 2, userCounter.get());
+    }
+
+    @Test
+    public void testOnlyTheAffectedUsersAreEvicted() {
+        seed(501, 502, 503, 504);
+        for (long id = 501; id <= 504; id++) {
+            userService.getUserById(id);
+            assertNotNull(usersCache.get(id));
+        }
+
+        userBulkService.updateUsers(List.of(user(501L, "changed501", "changed501@example.com"), user(599L, "ghost599", "ghost599@example.com")));
+        userBulkService.deleteUsers(List.of(503L));
+
+        assertNull(usersCache.get(501L));
+        assertNotNull(usersCache.get(502L));
+        assertNull(usersCache.get(503L));
+        assertNotNull(usersCache.get(504L));
+        assertEquals("changed501", userService.getUserById(501L).getUsername());
+    }
+
+    private static void seed(long... ids) {
+        for (long id : ids) {
+            jdbcTemplate.update("INSERT INTO users (id, username, name, email) VALUES (?, ?, ?, ?)",
+                    id, "user" + id, "User " + id, "user" + id + "@example.com");
+        }
+    }
+
+    private static UserModel user(Long id, String username, String email) {
+        UserModel user = new UserModel(username, "Bulk " + username, email);
+        user.setId(id);
+        return user;
+    }
+
+    private static List<String> statuses(List<BulkItemResult> results) {
+        return results.stream().map(BulkItemResult::getStatus).toList();
+    }
+
+    private static String usernameOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT username FROM users WHERE id = ?", String.class, id);
+    }
+
+    private static long changeCount() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM user_changes", Long.class);
+    }
+}
@@ -0,0 +1,106 @@
+package com.tvm.usermanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.exception.ChangeHistoryExpiredException;
+import com.tvm.usermanagement.repository.UserRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the outbox statements against a migrated database: events appear only once published, in the order
+ * they were recorded, and compaction and expiry keep positions monotonic.
+ */
+public class UserChangeFeedTest {
+
+    private EmbeddedPostgres postgres;
+    private JdbcTemplate jdbcTemplate;
+    private UserChangeFeed feed;
+
+    @BeforeEach
+    public void init() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        Flyway.configure().dataSource(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "").load().migrate();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.update("INSERT INTO users (id, username, name, email, version) VALUES"
+                + " (1, 'ann', 'Ann', 'ann@example.com', 0), (2, 'bob', 'Bob', 'bob@example.com', 0)");
+
+        feed = new UserChangeFeed();
+        ReflectionTestUtils.setField(feed, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(feed, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(feed, "userRepository", Mockito.mock(UserRepository.class));
+        ReflectionTestUtils.setField(feed, "publishBatchSize", 1000);
+        ReflectionTestUtils.setField(feed, "compactAfterMs", 3_600_000L);
+        ReflectionTestUtils.setField(feed, "retentionMs", 3_600_000L);
+    }
+
+    @AfterEach
+    public void stop() throws Exception {
+        postgres.close();
+    }
+
+    @Test
+    public void testEventsAreReadInRecordOrderOncePublished() {
+        feed.recordUpserts(UserChange.CREATED, List.of(2L, 1L));
+        jdbcTemplate.update("UPDATE users SET name = 'Ann B', version = 1 WHERE id = 1");
+        feed.recordUpserts(UserChange.UPDATED, List.of(1L));
+        feed.recordDeletes(List.of(2L));
+
+        assertTrue(feed.getChanges(0, 10).isEmpty());
+        assertEquals(0, feed.getHead());
+
+        assertEquals(4, feed.publish());
+        List<UserChange> changes = feed.getChanges(0, 10);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), changes.stream().map(UserChange::getSeq).toList());
+        assertEquals(List.of(1L, 2L, 1L, 2L), changes.stream().map(UserChange::getUserId).toList());
+        assertEquals(List.of(UserChange.CREATED, UserChange.CREATED, UserChange.UPDATED, UserChange.DELETED),
+                changes.stream().map(UserChange::getType).toList());
+        assertEquals("Ann B", changes.get(2).getUser().getName());
+        assertNull(changes.get(3).getUser());
+        assertEquals(4, feed.getHead());
+        assertEquals(List.of(4L), feed.getChanges(3, 10).stream().map(UserChange::getSeq).toList());
+    }
+
+    @Test
+    public void testCompactionKeepsTheLatestEventPerUser() throws Exception {
+        feed.recordUpserts(UserChange.CREATED, List.of(1L, 2L));
+        feed.recordUpserts(UserChange.UPDATED, List.of(1L));
+        feed.publish();
+        Thread.sleep(10);
+
+        ReflectionTestUtils.setField(feed, "compactAfterMs", 0L);
+        feed.prune();
+
+        List<UserChange> changes = feed.getChanges(0, 10);
+        assertEquals(List.of(2L, 3L), changes.stream().map(UserChange::getSeq).toList());
+    }
+
+    @Test
+    public void testExpiredPositionsAreRejectedAndNotReused() throws Exception {
+        feed.recordUpserts(UserChange.CREATED, List.of(1L, 2L));
+        feed.publish();
+        Thread.sleep(10);
+
+        ReflectionTestUtils.setField(feed, "retentionMs", 0L);
+        feed.prune();
+
+        assertThrows(ChangeHistoryExpiredException.class, () -> feed.getChanges(1, 10));
+        assertTrue(feed.getChanges(2, 10).isEmpty());
+        assertEquals(2, feed.getHead());
+
+        feed.recordUpserts(UserChange.UPDATED, List.of(1L));
+        feed.publish();
+        assertEquals(List.of(3L), feed.getChanges(2, 10).stream().map(UserChange::getSeq).toList());
+    }
+}
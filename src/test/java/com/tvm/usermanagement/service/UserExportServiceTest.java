@@ -0,0 +1,105 @@
+package com.tvm.usermanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvm.usermanagement.repository.UserRepository;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streams more than two fetches worth of users through {@code GET /api/users/export}, so the cursor is read
+ * and the persistence context cleared several times while the response is written.
+ */
+public class UserExportServiceTest {
+
+    private static final int ROWS = UserRepository.EXPORT_FETCH_SIZE * 2 + 500;
+    private static final long QUOTED_ID = ROWS + 1;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static EmbeddedApplication application;
+    private static HttpClient client;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        application = EmbeddedApplication.start("server.port=0", "user.cache.invalidation.enabled=false");
+        JdbcTemplate jdbcTemplate = application.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO users (id, username, name, email)"
+                + " SELECT i, 'user' || i, 'Name ' || i, 'user' || i || '@example.com' FROM generate_series(1, ?) AS i", ROWS);
+        jdbcTemplate.update("INSERT INTO users (id, username, name, email) VALUES (?, 'quoted', ?, 'quoted@example.com')",
+                QUOTED_ID, "Smith, \"Jr\"\nSecond line");
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    public static void stop() throws Exception {
+        client.close();
+        application.close();
+    }
+
+    @Test
+    public void testNdjsonExportWritesEveryUserOnceInIdOrder() throws Exception {
+        HttpResponse<String> response = export("ndjson");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(null));
+        List<Long> ids = new ArrayList<>();
+        JsonNode quoted = null;
+        for (String line : response.body().split("\n")) {
+            JsonNode user = objectMapper.readTree(line);
+            ids.add(user.get("id").asLong());
+            if (user.get("id").asLong() == QUOTED_ID) {
+                quoted = user;
+            }
+        }
+        assertIdsOnceInOrder(ids);
+        assertNotNull(quoted);
+        assertEquals("Smith, \"Jr\"\nSecond line", quoted.get("name").asText());
+    }
+
+    @Test
+    public void testCsvExportWritesHeaderEscapedFieldsAndEveryUserOnce() throws Exception {
+        HttpResponse<String> response = export("csv");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("text/csv", response.headers().firstValue("Content-Type").orElse(null));
+        String body = response.body();
+        assertTrue(body.startsWith("id,username,name,email\n"));
+        assertTrue(body.contains("\n1,user1,Name 1,user1@example.com\n"));
+        // Commas, quotes and line breaks are quoted, with quotes doubled
+        assertTrue(body.contains("\n" + QUOTED_ID + ",quoted,\"Smith, \"\"Jr\"\"\nSecond line\",quoted@example.com\n"));
+
+        List<Long> ids = new ArrayList<>();
+        for (String line : body.substring(body.indexOf('\n') + 1).split("\n")) {
+            // Skips the continuation line of the quoted name
+            if (!line.isEmpty() && Character.isDigit(line.charAt(0))) {
+                ids.add(Long.parseLong(line.substring(0, line.indexOf(','))));
+            }
+        }
+        assertIdsOnceInOrder(ids);
+    }
+
+    private static void assertIdsOnceInOrder(List<Long> ids) {
+        assertEquals(ROWS + 1, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i));
+        }
+    }
+
+    private static HttpResponse<String> export(String format) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + application.getPort() + "/api/users/export?format=" + format)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,166 @@
+package com.tvm.usermanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvm.usermanagement.common.ImportRowResult;
+import com.tvm.usermanagement.support.EmbeddedApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imports into a migrated embedded database in chunks of three rows, so every test spans more than one chunk.
+ */
+public class UserImportServiceTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static EmbeddedApplication application;
+    private static UserImportService userImportService;
+    private static UserCounter userCounter;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        application = EmbeddedApplication.start(
+                "server.port=0",
+                "user.import.chunk-size=3",
+                "user.cache.invalidation.enabled=false");
+        userImportService = application.getBean(UserImportService.class);
+        userCounter = application.getBean(UserCounter.class);
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    public static void stop() throws Exception {
+        application.close();
+    }
+
+    @Test
+    public void testRowsAreValidatedPerRowAcrossChunks() throws Exception {
+        long countBefore = userCounter.get();
+        List<JsonNode> results = importUsers(UserImportService.FORMAT_NDJSON,
+                "{\"username\":\"valid1\",\"name\":\"Valid One\",\"email\":\"valid1@example.com\"}",
+                "{\"username\":\"valid2\",\"name\":\"Valid Two\"}",
+                "not json",
+                "{\"username\":\"valid4\",\"name\":\"Valid Four\",\"email\":\"valid4@example.com\"}",
+                "{\"username\":\"valid5\",\"name\":\"Valid Five\",\"email\":\"not-an-email\"}");
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), rows(results));
+        assertEquals(List.of(ImportRowResult.CREATED, ImportRowResult.FAILED, ImportRowResult.FAILED,
+                ImportRowResult.CREATED, ImportRowResult.FAILED), statuses(results));
+        assertEquals("email", results.get(1).get("field").asText());
+        assertTrue(results.get(2).get("message").asText().startsWith("Malformed JSON row"));
+        assertEquals("email", results.get(4).get("field").asText());
+
+        assertEquals(results.get(0).get("id").asLong(), idOf("valid1"));
+        assertEquals(results.get(3).get("id").asLong(), idOf("valid4"));
+        assertEquals(countBefore + 2, userCounter.get());
+    }
+
+    @Test
+    public void testDuplicatesInsideAChunkAndAgainstTheDatabaseAreRejected() throws Exception {
+        importUsers(UserImportService.FORMAT_CSV, "username,name,email", "taken,Taken,taken@example.com");
+
+        List<JsonNode> results = importUsers(UserImportService.FORMAT_CSV,
+                "username,name,email",
+                "dup1,Dup One,dup@example.com",
+                "dup2,Dup Two,dup@example.com",
+                "dup1,Dup Three,dup3@example.com",
+                "fresh,Fresh,taken@example.com",
+                "taken,Taken Again,fresh@example.com");
+
+        assertEquals(List.of(ImportRowResult.CREATED, ImportRowResult.FAILED, ImportRowResult.FAILED,
+                ImportRowResult.FAILED, ImportRowResult.FAILED), statuses(results));
+        assertTrue(results.get(1).get("message").asText().contains("more than once"));
+        assertEquals("username", results.get(2).get("field").asText());
+        assertTrue(results.get(3).get("message").asText().contains("already exists"));
+        assertEquals("email", results.get(3).get("field").asText());
+        assertEquals("username", results.get(4).get("field").asText());
+        assertEquals(1, usersWithEmail("dup@example.com"));
+        assertEquals(1, usersWithEmail("taken@example.com"));
+    }
+
+    @Test
+    public void testRejectedRowDoesNotClaimItsOtherValues() throws Exception {
+        // All three rows land in one chunk; the second is rejected for its username only
+        List<JsonNode> results = importUsers(UserImportService.FORMAT_CSV,
+                "username,name,email",
+                "claimer,Claimer,claimer@example.com",
+                "claimer,Rejected,unclaimed@example.com",
+                "latecomer,Latecomer,unclaimed@example.com");
+
+        assertEquals(List.of(ImportRowResult.CREATED, ImportRowResult.FAILED, ImportRowResult.CREATED), statuses(results));
+        assertEquals("username", results.get(1).get("field").asText());
+        assertEquals(results.get(2).get("id").asLong(), idOf("latecomer"));
+    }
+
+    @Test
+    public void testChunkRollsBackAndRetriesRowByRowOnAConstraintViolation() throws Exception {
+        // Stands in for another writer taking the email between the duplicate check and the insert
+        jdbcTemplate.execute("CREATE FUNCTION reject_racer() RETURNS trigger AS $$ BEGIN"
+                + " IF NEW.username = 'racer' THEN"
+                + " RAISE unique_violation USING MESSAGE = 'duplicate key value violates unique constraint \"uk_users_email\"';"
+                + " END IF; RETURN NEW; END $$ LANGUAGE plpgsql");
+        jdbcTemplate.execute("CREATE TRIGGER reject_racer BEFORE INSERT ON users FOR EACH ROW EXECUTE FUNCTION reject_racer()");
+        long countBefore = userCounter.get();
+        long changesBefore = changeCount();
+        try {
+            List<JsonNode> results = importUsers(UserImportService.FORMAT_NDJSON,
+                    "{\"username\":\"before\",\"name\":\"Before\",\"email\":\"before@example.com\"}",
+                    "{\"username\":\"racer\",\"name\":\"Racer\",\"email\":\"racer@example.com\"}",
+                    "{\"username\":\"after\",\"name\":\"After\",\"email\":\"after@example.com\"}");
+
+            assertEquals(List.of(ImportRowResult.CREATED, ImportRowResult.FAILED, ImportRowResult.CREATED), statuses(results));
+            assertEquals("email", results.get(1).get("field").asText());
+            assertEquals(results.get(0).get("id").asLong(), idOf("before"));
+            assertEquals(results.get(2).get("id").asLong(), idOf("after"));
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE username = 'racer'", Long.class));
+            // The rolled back chunk left nothing behind, so every created row is counted and recorded once
+            assertEquals(countBefore + 2, userCounter.get());
+            assertEquals(changesBefore + 2, changeCount());
+        } finally {
+            jdbcTemplate.execute("DROP TRIGGER reject_racer ON users");
+            jdbcTemplate.execute("DROP FUNCTION reject_racer()");
+        }
+    }
+
+    private static List<JsonNode> importUsers(String format, String... lines) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userImportService.importUsers(new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)), format, out);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static List<Long> rows(List<JsonNode> results) {
+        return results.stream().map(result -> result.get("row").asLong()).toList();
+    }
+
+    private static List<String> statuses(List<JsonNode> results) {
+        return results.stream().map(result -> result.get("status").asText()).toList();
+    }
+
+    private static long idOf(String username) {
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    private static long usersWithEmail(String email) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE email = ?", Long.class, email);
+    }
+
+    private static long changeCount() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM user_changes", Long.class);
+    }
+}
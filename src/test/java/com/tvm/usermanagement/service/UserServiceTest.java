@@ -1,5 +1,16 @@
 package com.tvm.usermanagement.service;
 
+import com.tvm.usermanagement.cache.UserCacheInvalidator;
+import com.tvm.usermanagement.common.BatchResult;
+import com.tvm.usermanagement.common.CursorPage;
+import com.tvm.usermanagement.common.UserChange;
+import com.tvm.usermanagement.common.UserField;
+import com.tvm.usermanagement.common.UserPatch;
+import com.tvm.usermanagement.common.UserSearchField;
+import com.tvm.usermanagement.common.UserSort;
+import com.tvm.usermanagement.common.UserSortField;
+import com.tvm.usermanagement.exception.InvalidCursorException;
+import com.tvm.usermanagement.exception.UserAlreadyExistsException;
 import com.tvm.usermanagement.model.UserModel;
 import com.tvm.usermanagement.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,8 +19,23 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
-
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,6 +46,27 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private UserCounter userCounter;
+
+    @Mock
+    private UserUniquenessIndex userUniquenessIndex;
+
+    @Mock
+    private UserSearch userSearch;
+
+    @Mock
+    private UserChangeFeed userChangeFeed;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private UserService userService;
 
@@ -46,6 +93,9 @@ public class UserServiceTest {
         // Verify that the userRepository.save() method was called exactly once
         verify(userRepository, times(1)).save(user);
 
+        // Verify that the creation was recorded in the change feed, in the same transaction
+        verify(userChangeFeed, times(1)).recordUpserts(UserChange.CREATED, List.of(1L));
+
         // Verify that the saved user object is not null
         assertNotNull(savedUser);
 
@@ -208,6 +258,59 @@ public class UserServiceTest {
         assertEquals(updatedUser, result);
     }
 
+    @Test
+    public void testPatchUser_appliesOnlyPresentFields() {
+        // Arrange
+        UserModel user = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        user.setId(1L);
+        user.setVersion(3L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        UserPatch patch = new UserPatch();
+        patch.setName("Johnny Doe");
+        patch.setEmail("john.doe@example.com");
+        patch.setVersion(3L);
+
+        // Act
+        UserModel result = userService.patchUser(1L, patch);
+
+        // Assert
+        assertEquals("Johnny Doe", result.getName());
+        assertEquals("johndoe", result.getUsername());
+        assertEquals("john.doe@example.com", result.getEmail());
+        // The email did not change, so there is nothing to check for duplicates
+        verify(userRepository, never()).findByEmailInOrUsernameIn(any(), any());
+    }
+
+    @Test
+    public void testPatchUser_staleVersion() {
+        // Arrange
+        UserModel user = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        user.setId(1L);
+        user.setVersion(4L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        UserPatch patch = new UserPatch();
+        patch.setName("Johnny Doe");
+        patch.setVersion(3L);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> userService.patchUser(1L, patch));
+        assertEquals("John Doe", user.getName());
+    }
+
+    @Test
+    public void testCheckUserExists_allowsOwnValues() {
+        // Arrange
+        UserModel stored = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        stored.setId(1L);
+        when(userUniquenessIndex.mightContainEmail("john.doe@example.com")).thenReturn(true);
+        when(userRepository.findByEmailInOrUsernameIn(List.of("john.doe@example.com"), List.of("johndoe"))).thenReturn(List.of(stored));
+        UserModel resubmitted = new UserModel("johndoe", "Johnny Doe", "john.doe@example.com");
+
+        // Act & Assert
+        assertDoesNotThrow(() -> userService.checkUserExists(resubmitted, 1L));
+        assertThrows(UserAlreadyExistsException.class, () -> userService.checkUserExists(resubmitted, 2L));
+    }
+
     @Test
     public void testDeleteUser() {
         // Arrange
@@ -217,11 +320,204 @@ public class UserServiceTest {
         user.setEmail("john.doe@example.com");
         user.setUsername("johndoe");
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.removeById(1L)).thenReturn(1);
 
         // Act
         userService.deleteUser(1L);
 
         // Assert
-        verify(userRepository, times(1)).deleteById(1L);
+        verify(userRepository, times(1)).removeById(1L);
+        verify(userChangeFeed, times(1)).recordDeletes(List.of(1L));
+        verify(userCounter, times(1)).add(-1);
+    }
+
+    @Test
+    public void testDeleteUser_alreadyGoneLeavesCountAndFeedAlone() {
+        // A concurrent delete removed the row first
+        when(userRepository.removeById(1L)).thenReturn(0);
+
+        userService.deleteUser(1L);
+
+        verify(userCounter, never()).add(anyLong());
+        verify(userChangeFeed, never()).recordDeletes(any());
+    }
+
+    @Test
+    public void testDeleteUserAtVersion_alreadyGoneLeavesCountAndFeedAlone() {
+        // Arrange: the row was read, then deleted by another request before this delete ran
+        UserModel user = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        user.setId(1L);
+        user.setVersion(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.removeByIdAndVersion(1L, 1L)).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        // Act
+        userService.deleteUser(1L, 1L);
+
+        // Assert
+        verify(userCounter, never()).add(anyLong());
+        verify(userChangeFeed, never()).recordDeletes(any());
+    }
+
+    @Test
+    public void testDeleteUser_staleVersion() {
+        // Arrange
+        UserModel user = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        user.setId(1L);
+        user.setVersion(2L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> userService.deleteUser(1L, 1L));
+        verify(userRepository, never()).removeByIdAndVersion(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testGetUsersByCursor() {
+        // Arrange
+        UserModel first = new UserModel("janedoe", "Jane Doe", "jane.doe@example.com");
+        first.setId(3L);
+        UserModel second = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        second.setId(2L);
+        UserModel third = new UserModel("jimdoe", "Jim Doe", "jim.doe@example.com");
+        third.setId(1L);
+        UserSort sort = new UserSort(UserSortField.ID, false);
+        when(userRepository.findPageAfter(sort, null, null, 3)).thenReturn(List.of(first, second, third));
+        when(userRepository.findPageAfter(sort, "2", 2L, 3)).thenReturn(List.of(third));
+
+        // Act
+        CursorPage<UserModel> firstPage = userService.getUsersByCursor(null, 2, sort);
+        CursorPage<UserModel> lastPage = userService.getUsersByCursor(firstPage.getNextCursor(), 2, sort);
+
+        // Assert
+        assertEquals(List.of(first, second), firstPage.getContent());
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(third), lastPage.getContent());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    public void testGetUsersByCursor_rejectsCursorFromOtherDirection() {
+        // Arrange
+        UserModel first = new UserModel("anndoe", "Ann Doe", "ann.doe@example.com");
+        first.setId(1L);
+        UserModel second = new UserModel("janedoe", "Jane Doe", "jane.doe@example.com");
+        second.setId(2L);
+        UserSort ascending = new UserSort(UserSortField.USERNAME, true);
+        when(userRepository.findPageAfter(ascending, null, null, 2)).thenReturn(List.of(first, second));
+        String nextCursor = userService.getUsersByCursor(null, 1, ascending).getNextCursor();
+
+        // Act & Assert
+        assertThrows(InvalidCursorException.class,
+                () -> userService.getUsersByCursor(nextCursor, 1, new UserSort(UserSortField.USERNAME, false)));
+    }
+
+    @Test
+    public void testGetUserFieldsByCursor_dropsUnrequestedSortColumn() {
+        // Arrange
+        Set<UserField> fields = UserField.parse("id");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String[] values : new String[][]{{"3", "jimdoe"}, {"2", "janedoe"}, {"1", "anndoe"}}) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", Long.parseLong(values[0]));
+            row.put("username", values[1]);
+            rows.add(row);
+        }
+        UserSort sort = new UserSort(UserSortField.USERNAME, false);
+        when(userRepository.findFieldsAfter(fields, sort, null, null, 3)).thenReturn(rows);
+        when(userRepository.findFieldsAfter(fields, sort, "janedoe", 2L, 3)).thenReturn(new ArrayList<>(List.of(rows.get(2))));
+
+        // Act
+        CursorPage<Map<String, Object>> firstPage = userService.getUserFieldsByCursor(fields, null, 2, sort);
+        CursorPage<Map<String, Object>> lastPage = userService.getUserFieldsByCursor(fields, firstPage.getNextCursor(), 2, sort);
+
+        // Assert
+        assertEquals(List.of(Map.of("id", 3L), Map.of("id", 2L)), firstPage.getContent());
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(Map.of("id", 1L)), lastPage.getContent());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    public void testSearchUsers() {
+        // Arrange
+        UserModel first = new UserModel("janedoe", "Jane Doe", "jane.doe@example.com");
+        first.setId(3L);
+        UserModel second = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        second.setId(2L);
+        when(userSearch.find("doe", UserSearchField.ANY, false, null, 2)).thenReturn(List.of(first, second));
+        when(userSearch.find("doe", UserSearchField.ANY, false, 3L, 2)).thenReturn(List.of(second));
+
+        // Act
+        CursorPage<UserModel> firstPage = userService.searchUsers("Doe", UserSearchField.ANY, false, null, 1);
+        CursorPage<UserModel> lastPage = userService.searchUsers("Doe", UserSearchField.ANY, false, firstPage.getNextCursor(), 1);
+
+        // Assert
+        assertEquals(List.of(first), firstPage.getContent());
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(second), lastPage.getContent());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    public void testGetUsersByIds_loadsOnlyCacheMisses() {
+        // Arrange
+        UserModel cachedUser = new UserModel("janedoe", "Jane Doe", "jane.doe@example.com");
+        cachedUser.setId(1L);
+        UserModel storedUser = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        storedUser.setId(2L);
+        ConcurrentMapCache usersCache = new ConcurrentMapCache("users");
+        usersCache.put(1L, cachedUser);
+        when(cacheManager.getCache("users")).thenReturn(usersCache);
+        when(userRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(storedUser));
+
+        // Act
+        BatchResult<UserModel> result = userService.getUsersByIds(List.of(2L, 1L, 3L));
+
+        // Assert
+        assertEquals(List.of(storedUser, cachedUser), result.getItems());
+        assertEquals(List.of(3L), result.getMissingIds());
+        verify(userRepository, times(1)).findAllById(List.of(2L, 3L));
+        assertEquals(storedUser, usersCache.get(2L, UserModel.class));
+    }
+
+    @Test
+    public void testGetUserById_concurrentMissesShareOneLoad() throws Exception {
+        // Arrange
+        int threads = 100;
+        UserModel user = new UserModel("johndoe", "John Doe", "john.doe@example.com");
+        user.setId(1L);
+        AtomicInteger callers = new AtomicInteger();
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            // Keep the load in flight until every caller has asked for the same id
+            while (callers.get() < threads) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(100);
+            return Optional.of(user);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UserModel>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                callers.incrementAndGet();
+                return userService.getUserById(1L);
+            }));
+        }
+
+        // Act
+        start.countDown();
+
+        // Assert
+        for (Future<UserModel> result : results) {
+            assertEquals(user, result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        verify(userRepository, times(1)).findById(1L);
+        // Only the caller that ran the load opened a transaction, so the others never held a connection
+        verify(transactionManager, times(1)).getTransaction(any());
     }
 }
@@ -0,0 +1,94 @@
+package com.tvm.usermanagement.support;
+
+import com.tvm.usermanagement.UserManagementModuleApplication;
+import com.tvm.usermanagement.reactive.ReactiveUserManagementApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the application against a throwaway embedded Postgres, so benchmarks and load tests need no database setup
+ * and work offline. Flyway migrates the fresh database on startup like it would in production.
+ */
+public class EmbeddedApplication implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+    // False for additional nodes, which leave the database to the instance that started it
+    private final boolean ownsPostgres;
+
+    private EmbeddedApplication(EmbeddedPostgres postgres, ConfigurableApplicationContext context, boolean ownsPostgres) {
+        this.postgres = postgres;
+        this.context = context;
+        this.ownsPostgres = ownsPostgres;
+    }
+
+    /**
+     * Starts Postgres and the application; extra properties use the {@code key=value} form.
+     */
+    public static EmbeddedApplication start(String... properties) throws IOException {
+        return launch(new SpringApplicationBuilder(UserManagementModuleApplication.class), properties);
+    }
+
+    /**
+     * Starts another instance of the application on the database of {@code first}, as a second node would.
+     */
+    public static EmbeddedApplication startNode(EmbeddedApplication first, String... properties) {
+        return new EmbeddedApplication(first.postgres, run(new SpringApplicationBuilder(UserManagementModuleApplication.class),
+                first.postgres, properties), false);
+    }
+
+    /**
+     * Starts Postgres and the reactive (WebFlux + R2DBC) variant of the application.
+     */
+    public static EmbeddedApplication startReactive(String... properties) throws IOException {
+        return launch(new SpringApplicationBuilder(ReactiveUserManagementApplication.class)
+                .profiles(ReactiveUserManagementApplication.PROFILE), properties);
+    }
+
+    private static EmbeddedApplication launch(SpringApplicationBuilder builder, String... properties) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        try {
+            return new EmbeddedApplication(postgres, run(builder, postgres, properties), true);
+        } catch (RuntimeException e) {
+            postgres.close();
+            throw e;
+        }
+    }
+
+    private static ConfigurableApplicationContext run(SpringApplicationBuilder builder, EmbeddedPostgres postgres, String... properties) {
+        List<String> allProperties = new ArrayList<>(List.of(
+                "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "spring.datasource.username=postgres",
+                "spring.datasource.password=",
+                "spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres"));
+        allProperties.addAll(Arrays.asList(properties));
+        // Passed as command line arguments, which take precedence over application.properties
+        return builder.run(allProperties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int getPort() {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port", "-1"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        if (ownsPostgres) {
+            postgres.close();
+        }
+    }
+}
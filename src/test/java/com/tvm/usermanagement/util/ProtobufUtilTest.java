@@ -0,0 +1,171 @@
+package com.tvm.usermanagement.util;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.OneofDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.tvm.usermanagement.common.ApiResponse;
+import com.tvm.usermanagement.model.UserModel;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the hand-written encoding against protobuf-java itself: output of {@link ProtobufUtil#write} must parse as
+ * a {@code UserResponse} with no unknown fields, and messages protobuf-java builds must read back through
+ * {@link ProtobufUtil#read}. The descriptors are built here, field for field, from {@code user_response.proto}.
+ */
+public class ProtobufUtilTest {
+
+    private static Descriptor userType;
+    private static Descriptor userListType;
+    private static Descriptor responseType;
+
+    @BeforeAll
+    public static void buildDescriptors() throws Exception {
+        FileDescriptorProto file = FileDescriptorProto.newBuilder()
+                .setName("user_response.proto")
+                .setPackage("tvm.usermanagement")
+                .setSyntax("proto3")
+                .addMessageType(DescriptorProto.newBuilder().setName("User")
+                        .addField(field("id", 1, FieldDescriptorProto.Type.TYPE_INT64))
+                        .addField(field("username", 2, FieldDescriptorProto.Type.TYPE_STRING))
+                        .addField(field("name", 3, FieldDescriptorProto.Type.TYPE_STRING))
+                        .addField(field("email", 4, FieldDescriptorProto.Type.TYPE_STRING))
+                        .addField(field("version", 5, FieldDescriptorProto.Type.TYPE_INT64)))
+                .addMessageType(DescriptorProto.newBuilder().setName("UserList")
+                        .addField(field("users", 1, FieldDescriptorProto.Type.TYPE_MESSAGE).toBuilder()
+                                .setLabel(FieldDescriptorProto.Label.LABEL_REPEATED)
+                                .setTypeName(".tvm.usermanagement.User")))
+                .addMessageType(DescriptorProto.newBuilder().setName("UserResponse")
+                        .addField(field("status", 1, FieldDescriptorProto.Type.TYPE_INT32))
+                        .addField(field("message", 2, FieldDescriptorProto.Type.TYPE_STRING))
+                        .addField(field("record_count", 3, FieldDescriptorProto.Type.TYPE_INT32))
+                        .addField(field("user", 4, FieldDescriptorProto.Type.TYPE_MESSAGE).toBuilder()
+                                .setTypeName(".tvm.usermanagement.User").setOneofIndex(0))
+                        .addField(field("users", 5, FieldDescriptorProto.Type.TYPE_MESSAGE).toBuilder()
+                                .setTypeName(".tvm.usermanagement.UserList").setOneofIndex(0))
+                        .addField(field("next_cursor", 6, FieldDescriptorProto.Type.TYPE_STRING))
+                        .addOneofDecl(OneofDescriptorProto.newBuilder().setName("data")))
+                .build();
+        FileDescriptor descriptor = FileDescriptor.buildFrom(file, new FileDescriptor[0]);
+        userType = descriptor.findMessageTypeByName("User");
+        userListType = descriptor.findMessageTypeByName("UserList");
+        responseType = descriptor.findMessageTypeByName("UserResponse");
+    }
+
+    @Test
+    public void testListResponseParsesAsUserResponse() throws Exception {
+        ApiResponse<List<UserModel>> response = new ApiResponse<>(200, "All users retrieved successfully.", 1_000_000,
+                List.of(user(1L, "ann", "Ann Äström", "ann@example.com", 0L), user(2L, "bob", "Bob", "bob@example.com", 3L)), "next-page");
+
+        DynamicMessage message = DynamicMessage.parseFrom(responseType, write(response));
+
+        assertTrue(message.getUnknownFields().asMap().isEmpty());
+        assertEquals(200, get(message, "status"));
+        assertEquals("All users retrieved successfully.", get(message, "message"));
+        assertEquals(1_000_000, get(message, "record_count"));
+        assertEquals("next-page", get(message, "next_cursor"));
+        assertEquals("users", message.getOneofFieldDescriptor(responseType.getOneofs().get(0)).getName());
+
+        DynamicMessage users = (DynamicMessage) get(message, "users");
+        List<?> list = (List<?>) users.getField(userListType.findFieldByName("users"));
+        assertEquals(2, list.size());
+        DynamicMessage first = (DynamicMessage) list.get(0);
+        assertEquals(1L, first.getField(userType.findFieldByName("id")));
+        assertEquals("ann", first.getField(userType.findFieldByName("username")));
+        assertEquals("Ann Äström", first.getField(userType.findFieldByName("name")));
+        assertEquals("ann@example.com", first.getField(userType.findFieldByName("email")));
+        assertEquals(3L, ((DynamicMessage) list.get(1)).getField(userType.findFieldByName("version")));
+    }
+
+    @Test
+    public void testOutputMatchesProtobufJavaByteForByte() throws Exception {
+        UserModel user = user(42L, "carol", "Carol", "carol@example.com", 7L);
+        DynamicMessage expected = DynamicMessage.newBuilder(responseType)
+                .setField(responseType.findFieldByName("status"), 200)
+                .setField(responseType.findFieldByName("message"), "User retrieved successfully.")
+                .setField(responseType.findFieldByName("user"), toMessage(user))
+                .build();
+
+        // protobuf-java writes fields in number order and omits defaults, as ProtobufUtil does
+        assertArrayEquals(expected.toByteArray(), write(new ApiResponse<>(200, "User retrieved successfully.", 0, user)));
+    }
+
+    @Test
+    public void testErrorResponseSetsNeitherDataField() throws Exception {
+        DynamicMessage message = DynamicMessage.parseFrom(responseType, write(new ApiResponse<>(404, "User not found with id 9", 0, null)));
+
+        assertEquals(404, get(message, "status"));
+        assertNull(message.getOneofFieldDescriptor(responseType.getOneofs().get(0)));
+        assertFalse(message.hasField(responseType.findFieldByName("record_count")));
+        assertFalse(message.hasField(responseType.findFieldByName("next_cursor")));
+    }
+
+    @Test
+    public void testReadsMessagesBuiltByProtobufJava() throws Exception {
+        DynamicMessage users = DynamicMessage.newBuilder(userListType)
+                .addRepeatedField(userListType.findFieldByName("users"), toMessage(user(1L, "ann", "Ann", "ann@example.com", 0L)))
+                .addRepeatedField(userListType.findFieldByName("users"), toMessage(user(2L, "bob", "Bob", "bob@example.com", 5L)))
+                .build();
+        DynamicMessage message = DynamicMessage.newBuilder(responseType)
+                .setField(responseType.findFieldByName("status"), 200)
+                .setField(responseType.findFieldByName("record_count"), 2)
+                .setField(responseType.findFieldByName("users"), users)
+                .setField(responseType.findFieldByName("next_cursor"), "cursor")
+                .build();
+
+        ApiResponse<Object> response = ProtobufUtil.read(new ByteArrayInputStream(message.toByteArray()));
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getMessage());
+        assertEquals(2, response.getRecordCount());
+        assertEquals("cursor", response.getNextCursor());
+        List<?> data = (List<?>) response.getData();
+        assertEquals(2, data.size());
+        UserModel second = (UserModel) data.get(1);
+        assertEquals(2L, second.getId());
+        assertEquals("bob", second.getUsername());
+        assertEquals(5L, second.getVersion());
+    }
+
+    private static FieldDescriptorProto field(String name, int number, FieldDescriptorProto.Type type) {
+        return FieldDescriptorProto.newBuilder().setName(name).setNumber(number).setType(type)
+                .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL).build();
+    }
+
+    private static DynamicMessage toMessage(UserModel user) {
+        return DynamicMessage.newBuilder(userType)
+                .setField(userType.findFieldByName("id"), user.getId())
+                .setField(userType.findFieldByName("username"), user.getUsername())
+                .setField(userType.findFieldByName("name"), user.getName())
+                .setField(userType.findFieldByName("email"), user.getEmail())
+                .setField(userType.findFieldByName("version"), user.getVersion())
+                .build();
+    }
+
+    private static Object get(DynamicMessage message, String field) {
+        return message.getField(responseType.findFieldByName(field));
+    }
+
+    private static byte[] write(ApiResponse<?> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProtobufUtil.write(response, out);
+        return out.toByteArray();
+    }
+
+    private static UserModel user(Long id, String username, String name, String email, Long version) {
+        UserModel user = new UserModel(username, name, email);
+        user.setId(id);
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -0,0 +1,7 @@
+-- Table for IdentityUserRow: the users table as it was before the pooled sequence, with IDENTITY ids
+CREATE TABLE users_identity_benchmark (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255),
+    name     VARCHAR(255),
+    email    VARCHAR(255)
+);